@@ -0,0 +1,66 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application (without the web server) on its own in-memory H2 database
+ * and seeds the items table for the benchmarks.
+ */
+final class BenchmarkContext {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Replaces the content of the items table with the given number of pending items,
+     * inserted with JDBC batches instead of going through the service
+     */
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM items");
+
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "item" + id, "description" + id, "PENDING", "email" + id + "@example.com"});
+            if (batch.size() == SEED_BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO items (id, name, description, status, email, version) " +
+                        "VALUES (?, ?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+
+        // ids generated afterwards must not collide with the seeded ones
+        // (only done before the application generated any id, so it is never moved backwards)
+        if (rows > 0) {
+            jdbcTemplate.execute("ALTER SEQUENCE items_seq RESTART WITH " + (rows + 100));
+        }
+    }
+
+    /**
+     * Sets every item back to pending and not processed, so each run (incremental ones included)
+     * has the same amount of work
+     */
+    static void resetProcessing(ConfigurableApplicationContext context) {
+        context.getBean(JdbcTemplate.class).update("UPDATE items SET status = 'PENDING', needs_processing = TRUE");
+    }
+}
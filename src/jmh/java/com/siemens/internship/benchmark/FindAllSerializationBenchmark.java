@@ -0,0 +1,79 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.controller.ItemStreamSerializer;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the GET /api/items body: loading every item and serializing the list,
+ * with the databind ObjectMapper and with the streaming serializer in JSON, Smile and CBOR.
+ * Run with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class FindAllSerializationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ObjectMapper objectMapper;
+    private ItemStreamSerializer itemStreamSerializer;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("findAllSerializationBenchmark");
+        itemService = context.getBean(ItemService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        itemStreamSerializer = context.getBean(ItemStreamSerializer.class);
+        BenchmarkContext.seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findAllAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(itemService.findAll());
+    }
+
+    @Benchmark
+    public int findAllAndStreamJson() throws IOException {
+        return stream(MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public int findAllAndStreamSmile() throws IOException {
+        return stream(ItemStreamSerializer.SMILE);
+    }
+
+    @Benchmark
+    public int findAllAndStreamCbor() throws IOException {
+        return stream(ItemStreamSerializer.CBOR);
+    }
+
+    private int stream(MediaType mediaType) throws IOException {
+        out.reset(); // the response stream is not part of the measured allocations
+        try (JsonGenerator generator = itemStreamSerializer.createGenerator(mediaType, out)) {
+            itemStreamSerializer.writeItems(generator, itemService.findAll());
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of the ids by status and by email, from the in-memory index versus the database.
+ * 1 item in 100 is processed, and the status lookup returns the first page of 1000 of their ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ItemIndexBenchmark {
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ItemIndex itemIndex;
+    private ItemRepository itemRepository;
+    private String email;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("itemIndexBenchmark",
+                "items.index.enabled=true", "items.index.refresh-interval=PT1H");
+        itemIndex = context.getBean(ItemIndex.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        BenchmarkContext.seed(context, rows);
+        context.getBean(JdbcTemplate.class)
+                .update("UPDATE items SET status = 'PROCESSED' WHERE MOD(id, 100) = 0");
+        itemIndex.rebuild();
+        email = "email" + (rows / 2) + "@example.com";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long[] statusFromIndex() {
+        return itemIndex.findIdsByStatus("PROCESSED", null, PAGE_SIZE).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Long> statusFromDatabase() {
+        return itemRepository.findIdsByStatus("PROCESSED", Long.MIN_VALUE, Limit.of(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public long[] emailFromIndex() {
+        return itemIndex.findIdsByEmail(email, null, PAGE_SIZE).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Long> emailFromDatabase() {
+        return itemRepository.findIdsByEmail(email, Long.MIN_VALUE, Limit.of(PAGE_SIZE));
+    }
+}
@@ -0,0 +1,68 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.service.ItemValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the Item validation, for a valid and an invalid item,
+ * with bean validation and with the compiled ItemValidator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private final ItemValidator itemValidator = new ItemValidator();
+    private Item validItem;
+    private Item invalidItem;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validItem = new Item(null, "name", "description", "PENDING", "email@example.com");
+        invalidItem = new Item(null, "", "a".repeat(256), "", "email");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> validateValidItem() {
+        return validator.validate(validItem);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> validateInvalidItem() {
+        return validator.validate(invalidItem);
+    }
+
+    @Benchmark
+    public boolean validateValidItemCompiled() {
+        return itemValidator.isValid(validItem);
+    }
+
+    @Benchmark
+    public Errors validateInvalidItemCompiled() {
+        Errors errors = new BeanPropertyBindingResult(invalidItem, "item");
+        itemValidator.validate(invalidItem, errors);
+        return errors;
+    }
+}
@@ -0,0 +1,65 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a full processing run over the whole items table,
+ * per item (processItemsAsync), per item with a bounded window (processItemsStreaming)
+ * and set-based (processItemsInBulk).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ProcessItemsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"100"})
+    private int window;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("processItemsBenchmark");
+        itemService = context.getBean(ItemService.class);
+        BenchmarkContext.seed(context, rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetProcessing() {
+        BenchmarkContext.resetProcessing(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> processItemsAsync() {
+        return itemService.processItemsAsync().join();
+    }
+
+    @Benchmark
+    public long processItemsStreaming(Blackhole blackhole) {
+        return itemService.processItemsStreaming(window, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object processItemsInBulk() {
+        return itemService.processItemsInBulk(1000, false);
+    }
+}
@@ -0,0 +1,72 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts per second when saving items one by one (one transaction each)
+ * versus in batches (one transaction and JDBC batch per chunk).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SaveBenchmark {
+
+    private static final int ITEMS_PER_OPERATION = 100;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository itemRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("saveBenchmark");
+        itemService = context.getBean(ItemService.class);
+        itemRepository = context.getBean(ItemRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        BenchmarkContext.seed(context, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_OPERATION)
+    public void singleSaves() {
+        for (int i = 0; i < ITEMS_PER_OPERATION; i++) {
+            itemService.save(newItem(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_OPERATION)
+    public List<Item> batchedSave() {
+        List<Item> items = new ArrayList<>(ITEMS_PER_OPERATION);
+        for (int i = 0; i < ITEMS_PER_OPERATION; i++) {
+            items.add(newItem(i));
+        }
+        return transactionTemplate.execute(status -> itemRepository.saveAll(items));
+    }
+
+    private static Item newItem(int i) {
+        return new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com");
+    }
+}
@@ -0,0 +1,69 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.SnapshotResult;
+import com.siemens.internship.service.ItemSnapshotService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to export the items table to a snapshot file and to import it back into the empty table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ItemSnapshotService itemSnapshotService;
+    private Path directory;
+    private Path exported;
+    private Path imported;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("snapshotBenchmark");
+        itemSnapshotService = context.getBean(ItemSnapshotService.class);
+        BenchmarkContext.seed(context, rows);
+        directory = Files.createTempDirectory("items-snapshot");
+        exported = directory.resolve("exported.snapshot");
+        imported = directory.resolve("imported.snapshot");
+        itemSnapshotService.exportTo(imported);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearForImport(BenchmarkParams params) {
+        if (params.getBenchmark().endsWith("importSnapshot")) {
+            BenchmarkContext.seed(context, 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(exported);
+        Files.deleteIfExists(imported);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public SnapshotResult exportSnapshot() throws IOException {
+        return itemSnapshotService.exportTo(exported);
+    }
+
+    @Benchmark
+    public SnapshotResult importSnapshot() throws IOException {
+        return itemSnapshotService.importFrom(imported);
+    }
+}
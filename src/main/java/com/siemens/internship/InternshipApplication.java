@@ -1,13 +1,23 @@
 package com.siemens.internship;
 
+import com.siemens.internship.service.ItemSnapshotCommand;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class InternshipApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(InternshipApplication.class, args);
+		SpringApplication application = new SpringApplication(InternshipApplication.class);
+		if (ItemSnapshotCommand.isCommand(args)) {
+			// snapshot export or import: no web server, exit once it is done
+			application.setWebApplicationType(WebApplicationType.NONE);
+			System.exit(SpringApplication.exit(application.run(args)));
+		}
+		application.run(args);
 	}
 
 }
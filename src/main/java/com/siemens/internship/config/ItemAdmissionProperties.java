@@ -0,0 +1,79 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the admission of the write and processing requests ("items.admission.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.admission")
+public class ItemAdmissionProperties {
+
+    private final RateLimit rateLimit = new RateLimit();
+    private final Shedding shedding = new Shedding();
+
+    /**
+     * Token bucket of each client ("items.admission.rate-limit.*"),
+     * every write or processing request takes a token
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+        /**
+         * whether the requests of a client are limited
+         */
+        private boolean enabled = true;
+
+        /**
+         * tokens added to a client's bucket per second, its sustained request rate
+         */
+        private double requestsPerSecond = 50;
+
+        /**
+         * size of a client's bucket, the number of requests it can make in a burst
+         */
+        private int burst = 100;
+
+        /**
+         * request header identifying the client (e.g. set by a gateway), the remote address is used if missing
+         */
+        private String clientHeader;
+
+        /**
+         * maximum number of clients whose buckets are kept, the least recently seen ones are dropped
+         */
+        private int maxClients = 10_000;
+    }
+
+    /**
+     * Rejection of the write and processing requests while the application is overloaded ("items.admission.shedding.*")
+     */
+    @Getter
+    @Setter
+    public static class Shedding {
+        /**
+         * whether requests are rejected when the queues are too deep
+         */
+        private boolean enabled = true;
+
+        /**
+         * processing tasks waiting to run above which new processing requests are rejected
+         */
+        private int maxQueuedTasks = 50_000;
+
+        /**
+         * threads waiting for a database connection above which new requests are rejected
+         */
+        private int maxPendingConnections = 20;
+
+        /**
+         * how long rejected clients are told to wait before retrying
+         */
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+}
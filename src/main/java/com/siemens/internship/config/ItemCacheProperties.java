@@ -0,0 +1,32 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the item cache ("items.cache.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.cache")
+public class ItemCacheProperties {
+
+    /**
+     * whether item lookups by id are cached; only for a single node,
+     * the writes of other nodes are seen once the cached items expire
+     */
+    private boolean enabled = false;
+
+    /**
+     * maximum number of cached items, the least used ones are evicted first
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * how long an item stays cached after it was loaded or updated
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
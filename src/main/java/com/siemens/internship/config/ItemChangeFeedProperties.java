@@ -0,0 +1,63 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the item change feed ("items.changes.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.changes")
+public class ItemChangeFeedProperties {
+
+    /**
+     * whether the changes are recorded, each change adds a row to the outbox table
+     */
+    private boolean enabled = false;
+
+    /**
+     * identifies this node in the lease of the node recording the changes, random if not set
+     * (a node restarting with the same id takes its lease back right away)
+     */
+    private String nodeId;
+
+    /**
+     * how long the lease of the node recording the changes lasts without being renewed
+     */
+    private Duration writerLease = Duration.ofMinutes(1);
+
+    /**
+     * how often the node recording the changes renews its lease (well below the lease)
+     */
+    private Duration writerRenewInterval = Duration.ofSeconds(20);
+
+    /**
+     * number of most recent changes held in memory, older ones are read from the outbox table
+     */
+    private int bufferSize = 10_000;
+
+    /**
+     * how long the changes are kept in the outbox table
+     */
+    private Duration retention = Duration.ofDays(1);
+
+    /**
+     * how often the changes older than the retention are removed
+     */
+    private Duration pruneInterval = Duration.ofMinutes(1);
+
+    /**
+     * longest time a long-poll request waits for a change
+     * (below the asynchronous request timeout of the servlet container)
+     */
+    private Duration maxWait = Duration.ofSeconds(20);
+
+    /**
+     * how long an event stream stays open, clients reconnect with Last-Event-ID
+     */
+    private Duration streamTimeout = Duration.ofMinutes(10);
+}
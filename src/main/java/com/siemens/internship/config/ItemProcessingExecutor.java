@@ -0,0 +1,140 @@
+package com.siemens.internship.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for the item processing tasks.
+ * Runs the tasks on the configured backend, but lets at most maxConcurrency of them
+ * run at the same time, so that tasks wait instead of piling up on connection acquisition.
+ * A task is only handed to the backend once it has a permit: the others wait in a queue,
+ * without blocking the submitting thread nor holding a backend thread,
+ * and are started by the tasks that finish.
+ * Closed together with the Spring context.
+ * Publishes the number of queued and running tasks as "items.processing.executor.queued/active".
+ */
+public class ItemProcessingExecutor implements Executor, AutoCloseable, MeterBinder {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final Duration shutdownTimeout;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    public ItemProcessingExecutor(ExecutorService delegate, int maxConcurrency, Duration shutdownTimeout) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("The processing executor is closed");
+        }
+        queued.incrementAndGet();
+        pending.add(task);
+        startPending();
+    }
+
+    /**
+     * Hands the pending tasks to the backend while there are permits left.
+     * Whoever releases a permit calls it again, so a task queued while all permits are taken
+     * is started by the first task to finish
+     */
+    private void startPending() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            Runnable task = pending.poll();
+            if (task == null) {
+                permits.release(); // taken by another thread in the meantime
+                continue;
+            }
+            if (queued.decrementAndGet() == 0) {
+                synchronized (this) {
+                    notifyAll(); // close() waits for the queue to be empty
+                }
+            }
+            try {
+                delegate.execute(() -> run(task));
+            }
+            catch (RuntimeException e) {
+                permits.release(); // rejected
+                throw e;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        active.incrementAndGet();
+        try {
+            task.run();
+        }
+        finally {
+            active.decrementAndGet();
+            permits.release();
+            startPending();
+        }
+    }
+
+    /**
+     * @return the number of tasks submitted and not started yet
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("items.processing.executor.queued", queued, AtomicInteger::get)
+                .description("Processing tasks waiting to run")
+                .register(registry);
+        Gauge.builder("items.processing.executor.active", active, AtomicInteger::get)
+                .description("Processing tasks running")
+                .register(registry);
+        // pool size, completed tasks etc. of the backend (when it is a thread pool or fork/join pool)
+        new ExecutorServiceMetrics(delegate, "item-processing", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued and running ones, up to the shutdown timeout
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            synchronized (this) {
+                // the queued tasks still have to be handed to the backend before it is shut down
+                for (long remaining = shutdownTimeout.toNanos(); queued.get() > 0 && remaining > 0;
+                     remaining = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            delegate.shutdown();
+            if (!delegate.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                delegate.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the item processing backend ("items.processing.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.processing")
+public class ItemProcessingProperties {
+
+    /**
+     * Kinds of executors the processing tasks can run on
+     */
+    public enum ExecutorType {
+        /** one virtual thread per task (requires Java 21+) */
+        VIRTUAL,
+        /** fixed pool of platform threads */
+        FIXED,
+        /** work-stealing fork/join pool */
+        FORKJOIN
+    }
+
+    private ExecutorType executor = ExecutorType.FIXED;
+
+    /**
+     * number of threads of the fixed pool, parallelism of the fork/join pool
+     */
+    private int threads = 10;
+
+    /**
+     * maximum number of tasks using the database at the same time,
+     * defaults to the maximum size of the connection pool
+     */
+    private Integer maxConcurrency;
+
+    /**
+     * how long to wait for running tasks when the application shuts down
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * maximum time spent on one item, retries included, before it is given up and dead-lettered
+     */
+    private Duration itemTimeout = Duration.ofSeconds(30);
+
+    /**
+     * maximum number of items a processing run has in flight at the same time,
+     * the next items are started as these are done
+     */
+    private int maxInFlight = 100;
+
+    /**
+     * maximum number of changed rows a bulk processing run returns when asked to, the others are only counted
+     */
+    private int bulkMaxChanged = 1000;
+
+    private final Retry retry = new Retry();
+
+    private final Partitions partitions = new Partitions();
+
+    /**
+     * configuration of each processing stage, by stage name
+     */
+    private final Map<String, Stage> stages = new HashMap<>();
+
+    /**
+     * @return the configuration of the given stage, the defaults if it isn't configured
+     */
+    public Stage getStage(String name) {
+        return stages.getOrDefault(name, new Stage());
+    }
+
+    /**
+     * Configuration of one stage of the processing pipeline ("items.processing.stages.&lt;name&gt;.*")
+     */
+    @Getter
+    @Setter
+    public static class Stage {
+
+        /**
+         * number of threads running the stage's batches
+         */
+        private int parallelism = 1;
+
+        /**
+         * maximum number of items handed to the stage at once
+         */
+        private int batchSize = 50;
+
+        /**
+         * maximum number of items queued for the stage: a full queue blocks the stage before it,
+         * items submitted to a full first stage wait in memory
+         */
+        private int queueCapacity = 1000;
+    }
+
+    /**
+     * Configuration of the retries of items failing with transient errors ("items.processing.retry.*")
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+
+        /**
+         * maximum number of attempts per item, the first one included
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * wait before the first retry
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * factor applied to the wait after each failed retry
+         */
+        private double multiplier = 2;
+
+        /**
+         * longest wait between two attempts
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Configuration of the partitioned processing shared by all nodes ("items.processing.partitions.*")
+     */
+    @Getter
+    @Setter
+    public static class Partitions {
+
+        /**
+         * whether this node claims and processes partitions (never without a web server)
+         */
+        private boolean workerEnabled = false;
+
+        /**
+         * identifies this node in the partition leases, random if not set
+         */
+        private String nodeId;
+
+        /**
+         * default number of ids per partition
+         */
+        private int size = 10_000;
+
+        /**
+         * how long a claimed partition is reserved for the node that claimed it
+         */
+        private Duration leaseDuration = Duration.ofMinutes(1);
+
+        /**
+         * how often the lease of a partition being processed is extended (well below the lease duration)
+         */
+        private Duration leaseRenewInterval = Duration.ofSeconds(20);
+
+        /**
+         * how often the worker looks for free partitions
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * how long the partitions of a finished run are kept, so that its progress can still be read
+         */
+        private Duration finishedRunRetention = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the item snapshots ("items.snapshot.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.snapshot")
+public class ItemSnapshotProperties {
+
+    /**
+     * directory of the snapshots exported and imported through the REST endpoints
+     */
+    private Path directory = Path.of("snapshots");
+
+    /**
+     * number of rows per block of the snapshot file, a block is the unit of parallel import
+     */
+    private int blockSize = 65_536;
+
+    /**
+     * number of rows inserted by one JDBC batch
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * number of blocks imported at the same time, each with its own connection
+     */
+    private int importThreads = 4;
+}
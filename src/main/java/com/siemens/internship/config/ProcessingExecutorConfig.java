@@ -0,0 +1,60 @@
+package com.siemens.internship.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Creates the executor used for item processing, based on "items.processing.executor"
+ */
+@Configuration
+public class ProcessingExecutorConfig {
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    @Bean
+    public ItemProcessingExecutor itemProcessingExecutor(ItemProcessingProperties properties, DataSource dataSource) {
+        ExecutorService delegate = switch (properties.getExecutor()) {
+            case VIRTUAL -> newVirtualThreadExecutor();
+            case FIXED -> Executors.newFixedThreadPool(properties.getThreads(),
+                    new CustomizableThreadFactory("item-processing-"));
+            case FORKJOIN -> new ForkJoinPool(properties.getThreads());
+        };
+
+        return new ItemProcessingExecutor(delegate, maxConcurrency(properties, dataSource),
+                properties.getShutdownTimeout());
+    }
+
+    /**
+     * @return the configured max concurrency, or the size of the connection pool if not configured
+     */
+    private int maxConcurrency(ItemProcessingProperties properties, DataSource dataSource) {
+        if (properties.getMaxConcurrency() != null) {
+            return properties.getMaxConcurrency();
+        }
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            return hikariDataSource.getMaximumPoolSize();
+        }
+        return DEFAULT_MAX_CONCURRENCY;
+    }
+
+    /**
+     * The project is compiled for Java 17, so the virtual thread executor is looked up at runtime
+     * @return an executor starting a new virtual thread for each task
+     * @throws IllegalStateException if the runtime doesn't support virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The virtual executor requires Java 21 or newer", e);
+        }
+    }
+}
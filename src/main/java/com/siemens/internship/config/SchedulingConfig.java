@@ -0,0 +1,12 @@
+package com.siemens.internship.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background tasks
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
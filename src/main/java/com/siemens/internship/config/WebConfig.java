@@ -0,0 +1,41 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.controller.ItemAdmissionInterceptor;
+import com.siemens.internship.controller.ItemListHttpMessageConverter;
+import com.siemens.internship.controller.ItemStreamSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Puts the streaming item converter ahead of the default converters
+ * and puts the admission control in front of the item endpoints
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ItemStreamSerializer itemStreamSerializer;
+    private final ItemAdmissionInterceptor itemAdmissionInterceptor;
+
+    public WebConfig(ItemStreamSerializer itemStreamSerializer, ItemAdmissionProperties admissionProperties,
+                     ItemProcessingExecutor itemProcessingExecutor, DataSource dataSource, MeterRegistry meterRegistry) {
+        this.itemStreamSerializer = itemStreamSerializer;
+        this.itemAdmissionInterceptor = new ItemAdmissionInterceptor(admissionProperties, itemProcessingExecutor,
+                dataSource, meterRegistry);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ItemListHttpMessageConverter(itemStreamSerializer));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(itemAdmissionInterceptor).addPathPatterns("/api/items/**");
+    }
+}
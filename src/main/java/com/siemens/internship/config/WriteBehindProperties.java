@@ -0,0 +1,36 @@
+package com.siemens.internship.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the write-behind batching of item saves ("items.write-behind.*" properties)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "items.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * whether saves are combined into batches, when disabled each save runs on its own
+     */
+    private boolean enabled = false;
+
+    /**
+     * a batch is flushed as soon as it has this many items
+     */
+    private int batchSize = 50;
+
+    /**
+     * a batch is flushed at most this long after its first item arrived
+     */
+    private Duration maxDelay = Duration.ofMillis(10);
+
+    /**
+     * maximum number of saves waiting to be flushed, further saves are rejected
+     */
+    private int queueCapacity = 10_000;
+}
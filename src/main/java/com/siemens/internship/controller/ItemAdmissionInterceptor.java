@@ -0,0 +1,162 @@
+package com.siemens.internship.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.siemens.internship.config.ItemAdmissionProperties;
+import com.siemens.internship.config.ItemProcessingExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control of the item requests that write or start processing (any method but GET, HEAD and OPTIONS,
+ * and GET /api/items/process), so that a misbehaving client can't starve the others:
+ * each client gets a token bucket and is answered 429 TOO_MANY_REQUESTS once it is empty,
+ * and such requests are answered 503 SERVICE_UNAVAILABLE while too many requests wait for a database connection,
+ * or (for the processing requests only, since a run fills it) while too many processing tasks are queued.
+ * Both come with a Retry-After header.
+ * Reads are never rejected.
+ * Rejections are counted as "items.admission.rejected", tagged with the reason
+ */
+public class ItemAdmissionInterceptor implements HandlerInterceptor {
+    private static final String PROCESS_PATH = "/api/items/process";
+
+    private final ItemAdmissionProperties properties;
+    private final ItemProcessingExecutor executor;
+    private final DataSource dataSource;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public ItemAdmissionInterceptor(ItemAdmissionProperties properties, ItemProcessingExecutor executor,
+                                    DataSource dataSource, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.dataSource = dataSource;
+        ItemAdmissionProperties.RateLimit rateLimit = properties.getRateLimit();
+        // a bucket left alone for that long is full again, so it can be dropped
+        long refillNanos = (long) Math.ceil(rateLimit.getBurst() / rateLimit.getRequestsPerSecond() * 1e9);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimit.getMaxClients())
+                .expireAfterAccess(Duration.ofNanos(Math.max(1, refillNanos)))
+                .build();
+        this.rateLimited = rejections(meterRegistry, "rate-limit");
+        this.shed = rejections(meterRegistry, "overload");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // an asynchronous request is dispatched again to write its result, it was admitted the first time
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !isAdmissionControlled(request)) return true;
+
+        ItemAdmissionProperties.RateLimit rateLimit = properties.getRateLimit();
+        if (rateLimit.isEnabled()) {
+            TokenBucket bucket = buckets.get(clientOf(request),
+                    client -> new TokenBucket(rateLimit.getBurst(), rateLimit.getRequestsPerSecond()));
+            long waitNanos = bucket.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Too many requests, retry later.");
+                return false;
+            }
+        }
+
+        ItemAdmissionProperties.Shedding shedding = properties.getShedding();
+        if (shedding.isEnabled() && isOverloaded(shedding, request.getRequestURI().startsWith(PROCESS_PATH))) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, shedding.getRetryAfter().toNanos(),
+                    "The service is overloaded, retry later.");
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isAdmissionControlled(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method)) return PROCESS_PATH.equals(request.getRequestURI());
+        return !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String header = properties.getRateLimit().getClientHeader();
+        String client = header == null || header.isEmpty() ? null : request.getHeader(header);
+        return client != null ? client : request.getRemoteAddr();
+    }
+
+    /**
+     * @param processing whether the request is a processing request, which also depends on the queued tasks
+     * @return true if the requests waiting for a database connection (or the queued processing tasks)
+     *      are above their limits
+     */
+    private boolean isOverloaded(ItemAdmissionProperties.Shedding shedding, boolean processing) {
+        if (processing && executor.getQueued() > shedding.getMaxQueuedTasks()) return true;
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean(); // null until the pool is started
+            return pool != null && pool.getThreadsAwaitingConnection() > shedding.getMaxPendingConnections();
+        }
+        return false;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfterSeconds))); // rounded up
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("items.admission.rejected")
+                .description("Write and processing requests rejected by the admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Requests a client can make: up to capacity at once, refilled at a steady rate
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / 1e9;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Takes a token if there is one
+         * @param now the current System.nanoTime()
+         * @return 0 if a token was taken, otherwise how long until there is one, in nanoseconds
+         */
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
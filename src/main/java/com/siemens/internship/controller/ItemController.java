@@ -1,18 +1,59 @@
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.BatchResult;
+import com.siemens.internship.model.BulkProcessingResult;
+import com.siemens.internship.model.CacheStatistics;
+import com.siemens.internship.model.DeadLetter;
+import com.siemens.internship.model.DeadLetterReplayResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemChangePage;
+import com.siemens.internship.model.ItemCollectionVersion;
+import com.siemens.internship.model.ItemIdPage;
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemSearchCriteria;
+import com.siemens.internship.model.ItemSearchPage;
+import com.siemens.internship.model.ItemStatistics;
+import com.siemens.internship.model.PartitionedRunStatus;
+import com.siemens.internship.model.ProcessingJobStatus;
+import com.siemens.internship.model.SnapshotResult;
+import com.siemens.internship.service.ItemBatchService;
+import com.siemens.internship.service.ItemChangeFeed;
+import com.siemens.internship.service.ItemSearchService;
+import com.siemens.internship.service.ItemSnapshotService;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemValidator;
+import com.siemens.internship.service.PartitionedProcessingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * REST controller for managing Item resources.
@@ -23,15 +64,266 @@ import java.util.concurrent.ExecutionException;
 @RequestMapping("/api/items")
 public class ItemController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+    private static final String SMILE_VALUE = "application/x-jackson-smile";
+    private static final String CBOR_VALUE = "application/cbor";
+    private static final List<MediaType> STREAM_TYPES =
+            List.of(MediaType.APPLICATION_NDJSON, ItemStreamSerializer.SMILE, ItemStreamSerializer.CBOR);
+
     private final ItemService itemService;
+    private final ItemBatchService itemBatchService;
+    private final ItemSearchService itemSearchService;
+    private final PartitionedProcessingService partitionedProcessingService;
+    private final ObjectMapper objectMapper;
+    private final ItemStreamSerializer itemStreamSerializer;
+    private final ItemValidator itemValidator;
+    private final ItemSnapshotService itemSnapshotService;
+    private final ItemChangeFeed itemChangeFeed;
+
+    /**
+     * Validates the item bodies with the compiled validator instead of bean validation,
+     * the errors in the binding result are the same
+     */
+    @InitBinder("item")
+    public void initItemBinder(WebDataBinder binder) {
+        binder.setValidator(itemValidator);
+    }
+
+    /**
+     * Retrieves all items from the database, ordered by id, as a JSON array
+     * (or a Smile or CBOR one if the client accepts one of those instead).
+     * The rows are written to the response as they are read, the table is never loaded at once.
+     * The response has an ETag that changes with any item (no Last-Modified date: deletions leave no time behind)
+     * @param accept the Accept header of the request
+     * @param request the request, checked for If-None-Match
+     * @return 200 OK with the list of items,
+     *      304 NOT_MODIFIED (without reading the items) if the client's copy is up to date
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public ResponseEntity<StreamingResponseBody> getAllItems(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                             WebRequest request) {
+        // read before the items: a change made in between gives a new tag, so the next request gets it
+        ItemCollectionVersion version = itemService.getCollectionVersion();
+        if (request.checkNotModified("\"" + version.tag() + "\"")) {
+            return null; // the 304 status and the headers are set by checkNotModified
+        }
+        MediaType contentType = contentType(accept, itemStreamSerializer.getSupportedMediaTypes());
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(itemArrayBody(contentType));
+    }
+
+    /**
+     * Retrieves a page of items, ordered by id
+     * @param after cursor of the page (the "next" value of the previous page), omitted for the first page
+     * @param limit maximum number of items in the page
+     * @return 200 OK with the items and the cursor of the next page (null on the last page),
+     *      400 BAD_REQUEST if the limit is out of range
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getItemsPage(@RequestParam(required = false) Long after,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        ItemPage page = itemService.findPage(after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Searches items, returning only the requested fields
+     * @param status only items with this status
+     * @param email only items with this email
+     * @param emailDomain only items whose email has this domain (e.g. "example.com")
+     * @param namePrefix only items whose name starts with this prefix
+     * @param sort "id" or "name", prefixed with "-" for the descending order
+     * @param after cursor of the page (the "next" value of the previous page), omitted for the first page
+     * @param limit maximum number of items in the page
+     * @param fields comma separated fields to return (e.g. "id,status"), omitted for all fields
+     * @return 200 OK with the items and the cursor of the next page (null on the last page),
+     *      400 BAD_REQUEST if the limit is out of range or a field, the sort or the cursor is invalid
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(@RequestParam(required = false) String status,
+                                         @RequestParam(required = false) String email,
+                                         @RequestParam(required = false) String emailDomain,
+                                         @RequestParam(required = false) String namePrefix,
+                                         @RequestParam(defaultValue = "id") String sort,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(defaultValue = "100") int limit,
+                                         @RequestParam(required = false) String fields) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        try {
+            ItemSearchPage page = itemSearchService.search(
+                    new ItemSearchCriteria(status, email, emailDomain, namePrefix), fields, sort, after, limit);
+            return ResponseEntity.ok(page);
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the ids of the items with a status or with an email,
+     * answered from the in-memory index when it is enabled and up to date
+     * @param status the status of the items
+     * @param email the email of the items
+     * @param after cursor of the page (the "next" value of the previous page), omitted for the first page
+     * @param limit maximum number of ids in the page
+     * @return 200 OK with the ids, ascending, and the cursor of the next page (null on the last page),
+     *      400 BAD_REQUEST unless exactly one of status and email is given, or if the limit is out of range
+     */
+    @GetMapping("/ids")
+    public ResponseEntity<?> getItemIds(@RequestParam(required = false) String status,
+                                        @RequestParam(required = false) String email,
+                                        @RequestParam(required = false) Long after,
+                                        @RequestParam(defaultValue = "1000") int limit) {
+        if ((status == null) == (email == null)) {
+            return ResponseEntity.badRequest().body("Exactly one of status and email must be given.");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        ItemIdPage page = status != null
+                ? itemService.findIdsByStatus(status, after, limit)
+                : itemService.findIdsByEmail(email, after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Retrieves the number of items, in total and per status, without reading the items
+     * @return 200 OK with the counts
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ItemStatistics> getStatistics() {
+        return ResponseEntity.ok(itemService.getStatistics());
+    }
+
+    /**
+     * Streams all items as newline delimited JSON, one item per line,
+     * or as a sequence of Smile or CBOR values if the client accepts one of those instead,
+     * writing the rows to the response as they are read from the database
+     * @param accept the Accept header of the request
+     * @return 200 OK with the stream of items
+     */
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamItems(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType contentType = streamContentType(accept);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(itemsBody(contentType, STREAM_FLUSH_INTERVAL, itemService::forEachItem));
+    }
+
+    /**
+     * Retrieves the changes made to the items after an offset, in order,
+     * waiting for a change if there is none yet and wait is given (long-poll)
+     * @param after sequence number of the last change seen (the "next" value of the previous response),
+     *      omitted to get only the changes made from now on
+     * @param limit maximum number of changes
+     * @param wait longest time to wait for a change, in seconds (capped by "items.changes.max-wait")
+     * @return 200 OK with the changes (none if the wait ended without a change) and the offset of the next request,
+     *      400 BAD_REQUEST if the offset is beyond the last change or the limit or wait is out of range,
+     *      404 NOT_FOUND if the change feed is disabled,
+     *      410 GONE if changes after the offset are no longer retained
+     */
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> getChanges(@RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = "100") int limit,
+                                                           @RequestParam(defaultValue = "0") int wait) {
+        if (!itemChangeFeed.isEnabled()) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body("Limit must be between 1 and " + MAX_PAGE_SIZE + "."));
+        }
+        if (wait < 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Wait can't be negative."));
+        }
+        try {
+            long offset = after == null ? itemChangeFeed.getLastSequence() : after;
+            return itemChangeFeed.poll(offset, limit, Duration.ofSeconds(wait))
+                    .thenApply(page -> page.<ResponseEntity<?>>map(ResponseEntity::ok)
+                            .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE)
+                                    .body("Changes after the offset are no longer retained.")));
+        }
+        catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+    }
 
     /**
-     * Retrieves all items from the database
-     * @return 200 OK with the list of items
+     * Streams the changes made to the items after an offset as server-sent events, as they are made:
+     * an "item-change" event per change, with the sequence number as event id,
+     * comments while there are no changes, and an "expired" event before closing
+     * if changes after the offset are no longer retained
+     * @param after sequence number of the last change seen, omitted to get only the changes made from now on
+     * @param lastEventId the id of the last event received, sent by a reconnecting client instead of after
+     * @return 200 OK with the event stream,
+     *      400 BAD_REQUEST if the offset is beyond the last change,
+     *      404 NOT_FOUND if the change feed is disabled
      */
-    @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) Long after,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (!itemChangeFeed.isEnabled()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        long offset = lastEventId != null ? lastEventId : after != null ? after : itemChangeFeed.getLastSequence();
+        if (offset < 0 || offset > itemChangeFeed.getLastSequence()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(itemChangeFeed.getStreamTimeout().toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+        sendChanges(emitter, open, offset);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Waits for the changes after the offset and sends them, then does the same from the last one sent,
+     * until the stream is closed. Each step runs once the previous one is done, on the common pool
+     */
+    private void sendChanges(SseEmitter emitter, AtomicBoolean open, long after) {
+        if (!open.get()) return;
+
+        itemChangeFeed.poll(after, MAX_PAGE_SIZE, itemChangeFeed.getMaxWait()).whenCompleteAsync((page, e) -> {
+            try {
+                if (e != null) {
+                    emitter.completeWithError(e);
+                    return;
+                }
+                if (page.isEmpty()) {
+                    emitter.send(SseEmitter.event().name("expired")
+                            .data("Changes after the offset are no longer retained."));
+                    emitter.complete();
+                    return;
+                }
+                ItemChangePage changes = page.get();
+                if (changes.changes().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("no changes")); // also finds out if the client left
+                }
+                for (ItemChange change : changes.changes()) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.sequence()))
+                            .name("item-change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+                sendChanges(emitter, open, changes.next());
+            }
+            catch (IOException | IllegalStateException ex) {
+                open.set(false); // the client went away or the stream timed out
+            }
+        });
     }
 
     /**
@@ -47,33 +339,109 @@ public class ItemController {
             return ResponseEntity.badRequest() // returning bad request status
                     .body(result.getAllErrors()); // and list of validation errors
         }
+        item.setId(null); // ids and versions are always generated
+        item.setVersion(null);
         Item savedItem = itemService.save(item);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedItem);
     }
 
     /**
-     * Retrieves an item by its id
+     * Creates the items of a JSON array, ignoring any given ids
+     * @param items the items to be created
+     * @return 200 OK with the id of each created item and the validation errors of the rejected ones
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResult> createItems(@RequestBody List<Item> items) {
+        return ResponseEntity.ok(itemBatchService.saveAll(items.iterator(), false));
+    }
+
+    /**
+     * Creates the items of a newline delimited JSON body, reading it in chunks
+     * @param body one item per line
+     * @return 200 OK with the id of each created item and the errors of the rejected ones
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> createItemsNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(itemBatchService.saveAll(objectMapper.readerFor(Item.class).readValues(body), false));
+    }
+
+    /**
+     * Creates or updates the items of a JSON array,
+     * items with the id of an existing item update it, the others are created
+     * @param items the items to be saved
+     * @return 200 OK with the id of each saved item and the validation errors of the rejected ones
+     */
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResult> upsertItems(@RequestBody List<Item> items) {
+        return ResponseEntity.ok(itemBatchService.saveAll(items.iterator(), true));
+    }
+
+    /**
+     * Creates or updates the items of a newline delimited JSON body, reading it in chunks
+     * @param body one item per line
+     * @return 200 OK with the id of each saved item and the errors of the rejected ones
+     */
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> upsertItemsNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(itemBatchService.saveAll(objectMapper.readerFor(Item.class).readValues(body), true));
+    }
+
+    /**
+     * Deletes the items with the given ids
+     * @param ids JSON array of ids
+     * @return 200 OK with the deleted ids and an error for each id that doesn't exist
+     */
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResult> deleteItems(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(itemBatchService.deleteAll(ids));
+    }
+
+    /**
+     * Retrieves the statistics of the item cache
+     * @return 200 OK with the number of cached items, hits, misses and evictions
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(itemService.getCacheStatistics());
+    }
+
+    /**
+     * Retrieves an item by its id.
+     * The response has the item's version as ETag and its modification time as Last-Modified date
      * @param id the id of the item
-     * @return 200 OK with the item if found
+     * @param request the request, checked for If-None-Match and If-Modified-Since
+     * @return 200 OK with the item if found,
+     *      304 NOT_MODIFIED if the client's copy is up to date,
      *      404 NOT_FOUND otherwise
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        return itemService.findById(id)
-                .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
-                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
-        // not found instead of no content since that would mean that the item exists
-        // but the response doesn't have a body
+    public ResponseEntity<Item> getItemById(@PathVariable Long id, WebRequest request) {
+        Optional<Item> item = itemService.findById(id);
+        if (item.isEmpty()) {
+            // not found instead of no content since that would mean that the item exists
+            // but the response doesn't have a body
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        Item found = item.get();
+        long lastModified = found.getUpdatedAt() == null ? -1 : found.getUpdatedAt().toEpochMilli();
+        String eTag = found.getVersion() == null ? null : "\"" + found.getVersion() + "\""; // not saved yet
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null; // the 304 status and the headers are set by checkNotModified
+        }
+        return new ResponseEntity<>(found, HttpStatus.OK);
     }
 
     /**
-     * Updates an existing item
+     * Updates an existing item with a single statement.
+     * If the body has a version, the item is only updated if it wasn't modified since that version
      * @param id the id of the item to be updated
      * @param item the updated item
      * @param result validation result
      * @return 200 OK if updated successfully,
      *      400 BAD_REQUEST if validation fails,
-     *      404 NOT_FOUND if the item to update doesn't exist
+     *      404 NOT_FOUND if the item to update doesn't exist,
+     *      409 CONFLICT if the item was modified since the given version
      */
     @PutMapping("/{id}")
     public ResponseEntity<?> updateItem(@PathVariable Long id, @Valid @RequestBody Item item, BindingResult result) {
@@ -82,13 +450,15 @@ public class ItemController {
                     .body(result.getAllErrors()); // and validation errors
         }
 
-        Optional<Item> existingItem = itemService.findById(id);
-        if (existingItem.isPresent()) {
-            item.setId(id);
-            return new ResponseEntity<>(itemService.save(item), HttpStatus.OK);
-            // instead of created status, since the item already exists and is just updated
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            return itemService.update(id, item)
+                    .<ResponseEntity<?>>map(updatedItem -> new ResponseEntity<>(updatedItem, HttpStatus.OK))
+                    .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            // ok instead of created status, since the item already exists and is just updated
+        }
+        catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("The item was modified by another request.");
         }
     }
 
@@ -100,8 +470,7 @@ public class ItemController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        if(itemService.findById(id).isPresent()) {
-            itemService.deleteById(id);
+        if (itemService.delete(id)) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // recommended status for delete
         }
         else {
@@ -111,24 +480,312 @@ public class ItemController {
 
     /**
      * Processes asynchronously all the items,
-     * each item is updated and saved with status "PROCESSED"
+     * each item is updated and saved with status "PROCESSED".
+     * A request made while a run is in progress gets the result of that run instead of starting another one.
+     * The request is completed asynchronously, no servlet thread waits for the run
      * @return 200 OK with list of processed items,
      *      500 INTERNAL_SERVER_ERROR if something fails
      */
     @GetMapping("/process")
-    public ResponseEntity<?> processItems() {
+    public CompletableFuture<ResponseEntity<?>> processItems() {
+        return itemService.processItemsShared()
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("An error occurred while processing the items."));
+    }
+
+    /**
+     * Starts processing all the items in the background,
+     * each item is updated and saved with status "PROCESSED".
+     * While a job of the same kind is running, that job is returned instead of starting another one
+     * @param incremental if true, only the items never processed or modified since they were last processed
+     *      are processed
+     * @return 202 ACCEPTED with the job's progress and its location,
+     *      503 SERVICE_UNAVAILABLE if too many jobs are already running
+     */
+    @PostMapping("/process")
+    public ResponseEntity<?> startProcessingJob(@RequestParam(defaultValue = "false") boolean incremental) {
         try {
-            List<Item> future = itemService.processItemsAsync().get();
-            return ResponseEntity.ok(future);
+            ProcessingJobStatus job = itemService.startProcessingJob(incremental);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/items/process/" + job.jobId()))
+                    .body(job);
+        }
+        catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the progress of a processing job
+     * @param jobId the job's id
+     * @return 200 OK with the job's progress,
+     *      404 NOT_FOUND if the job doesn't exist or expired
+     */
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> getProcessingJob(@PathVariable String jobId) {
+        return itemService.getProcessingJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Cancels a processing job, items not picked up yet are left unprocessed
+     * @param jobId the job's id
+     * @return 200 OK with the job's progress,
+     *      404 NOT_FOUND if the job doesn't exist or expired
+     */
+    @DeleteMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJobStatus> cancelProcessingJob(@PathVariable String jobId) {
+        return itemService.cancelProcessingJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Processes all the items with a bounded number of items in flight,
+     * streaming each processed item as a line of newline delimited JSON (or a Smile or CBOR value),
+     * sent at the latest once a window's worth of items is done
+     * @param window maximum number of items being processed at the same time
+     * @param incremental if true, only the items never processed or modified since they were last processed
+     *      are processed
+     * @param accept the Accept header of the request
+     * @return 200 OK with the stream of processed items,
+     *      400 BAD_REQUEST if the window is not positive
+     */
+    @PostMapping(value = "/process/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public ResponseEntity<StreamingResponseBody> processItemsStreaming(@RequestParam(defaultValue = "50") int window,
+                                                                       @RequestParam(defaultValue = "false") boolean incremental,
+                                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (window <= 0) {
+            // the body has to be streamed as well, since the method returns a streaming body
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write("Window must be positive.".getBytes(StandardCharsets.UTF_8)));
         }
-        catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Processing was interrupted.");
+        MediaType contentType = streamContentType(accept);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(itemsBody(contentType, window,
+                        action -> itemService.processItemsStreaming(window, incremental, action)));
+    }
+
+    /**
+     * Starts a partitioned processing run: the items are split into id ranges
+     * that are claimed and processed by all the nodes sharing the database and running a worker.
+     * Only the status is set, the items don't go through the processing stages.
+     * Runs are only started on nodes running a worker, so that a started run is sure to progress
+     * @param partitionSize number of ids per partition, the configured size if omitted
+     * @return 202 ACCEPTED with the number of partitions and the run's location,
+     *      400 BAD_REQUEST if the partition size is not positive,
+     *      409 CONFLICT if this node doesn't run a worker ("items.processing.partitions.worker-enabled")
+     */
+    @PostMapping("/process/partitioned")
+    public ResponseEntity<?> startPartitionedRun(@RequestParam(required = false) Integer partitionSize) {
+        if (partitionSize != null && partitionSize <= 0) {
+            return ResponseEntity.badRequest().body("Partition size must be positive.");
         }
-        catch (ExecutionException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("An error occurred while processing the items.");
+        if (!partitionedProcessingService.isWorkerEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("This node doesn't process partitions (items.processing.partitions.worker-enabled=false).");
         }
+        PartitionedRunStatus run = partitionSize == null
+                ? partitionedProcessingService.startRun()
+                : partitionedProcessingService.startRun(partitionSize);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/process/partitioned/" + run.runId()))
+                .body(run);
+    }
+
+    /**
+     * Retrieves the progress of a partitioned processing run
+     * @param runId the run's id
+     * @return 200 OK with the number of pending, claimed and done partitions,
+     *      404 NOT_FOUND if the run doesn't exist
+     */
+    @GetMapping("/process/partitioned/{runId}")
+    public ResponseEntity<PartitionedRunStatus> getPartitionedRun(@PathVariable String runId) {
+        return partitionedProcessingService.getRun(runId)
+                .map(ResponseEntity::ok)
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Retrieves the items whose processing failed, with the reason of their last failure
+     * @param limit maximum number of dead letters returned
+     * @return 200 OK with the dead letters, oldest failure first,
+     *      400 BAD_REQUEST if the limit is out of range
+     */
+    @GetMapping("/process/dead-letters")
+    public ResponseEntity<?> getDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        List<DeadLetter> deadLetters = itemService.findDeadLetters(limit);
+        return ResponseEntity.ok(deadLetters);
+    }
+
+    /**
+     * Processes again the items whose processing failed,
+     * the dead letters of the items that succeed are removed
+     * @param limit maximum number of items replayed
+     * @return 200 OK with the number of replayed, succeeded and failed items,
+     *      400 BAD_REQUEST if the limit is not positive
+     */
+    @PostMapping("/process/dead-letters/replay")
+    public ResponseEntity<?> replayDeadLetters(@RequestParam(defaultValue = "1000") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        DeadLetterReplayResult result = itemService.replayDeadLetters(limit);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Processes all the items with set-based updates,
+     * each chunk of ids is updated to status "PROCESSED" with a single statement.
+     * Only the status is set, the items don't go through the processing stages
+     * @param chunkSize number of ids covered by one update statement
+     * @param includeChanged whether the response should list the changed rows
+     *      (the first "items.processing.bulk-max-changed" of them, "changedTruncated" tells if there were more)
+     * @return 200 OK with the number of chunks and updated rows,
+     *      400 BAD_REQUEST if the chunk size is not positive
+     */
+    @PostMapping("/process/bulk")
+    public ResponseEntity<?> processItemsInBulk(@RequestParam(defaultValue = "1000") int chunkSize,
+                                                @RequestParam(defaultValue = "false") boolean includeChanged) {
+        if (chunkSize <= 0) {
+            return ResponseEntity.badRequest().body("Chunk size must be positive.");
+        }
+        BulkProcessingResult result = itemService.processItemsInBulk(chunkSize, includeChanged);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Exports all the items to a snapshot file in the snapshot directory, replacing an existing one of the same name
+     * @param name the snapshot's name (letters, digits, '.', '_' and '-')
+     * @return 200 OK with the number of items and the size of the file,
+     *      400 BAD_REQUEST if the name is invalid
+     */
+    @PostMapping("/snapshots/{name}")
+    public ResponseEntity<?> exportSnapshot(@PathVariable String name) throws IOException {
+        try {
+            SnapshotResult result = itemSnapshotService.exportTo(itemSnapshotService.resolve(name));
+            return ResponseEntity.ok(result);
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Imports a snapshot file of the snapshot directory into the items table, which must be empty
+     * @param name the snapshot's name
+     * @return 200 OK with the number of imported items,
+     *      400 BAD_REQUEST if the name is invalid or the file is not a valid snapshot,
+     *      404 NOT_FOUND if the snapshot doesn't exist,
+     *      409 CONFLICT if the items table is not empty
+     */
+    @PostMapping("/snapshots/{name}/import")
+    public ResponseEntity<?> importSnapshot(@PathVariable String name) throws IOException {
+        try {
+            SnapshotResult result = itemSnapshotService.importFrom(itemSnapshotService.resolve(name));
+            return ResponseEntity.ok(result);
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        catch (NoSuchFileException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Picks the format of a streamed response: the first of NDJSON, Smile and CBOR accepted by the client
+     * (in the client's order of preference), NDJSON if the client accepts anything
+     * @param accept the Accept header, null if missing
+     * @return the content type of the response
+     */
+    private static MediaType streamContentType(String accept) {
+        return contentType(accept, STREAM_TYPES);
+    }
+
+    /**
+     * Picks the first of the candidate formats accepted by the client (in the client's order of preference)
+     * @param accept the Accept header, null if missing
+     * @param candidates the formats that can be written, the first one used if the client accepts none of them
+     * @return the content type of the response
+     */
+    private static MediaType contentType(String accept, List<MediaType> candidates) {
+        if (accept == null || accept.isBlank()) return candidates.get(0);
+
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            for (MediaType candidate : candidates) {
+                if (mediaType.isCompatibleWith(candidate)) return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    /**
+     * Builds a response body writing all the items as one array, read row by row from the database
+     * @param contentType JSON, Smile or CBOR
+     * @return the response body
+     */
+    private StreamingResponseBody itemArrayBody(MediaType contentType) {
+        return outputStream -> {
+            try (JsonGenerator generator = itemStreamSerializer.createGenerator(contentType, outputStream)) {
+                generator.writeStartArray();
+                itemService.forEachItem(item -> {
+                    try {
+                        itemStreamSerializer.writeItem(generator, item);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    /**
+     * Builds a response body writing the items produced by the given source,
+     * as newline delimited JSON or as a sequence of Smile or CBOR values.
+     * The output is flushed every flushInterval items (and whenever the buffers fill up) rather than after each item,
+     * the generator's close flushes the rest
+     * @param contentType the format of the body
+     * @param flushInterval number of items written between two flushes
+     * @param source passes every item to be written to the given consumer
+     * @return the response body
+     */
+    private StreamingResponseBody itemsBody(MediaType contentType, int flushInterval, Consumer<Consumer<Item>> source) {
+        boolean lines = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+        return outputStream -> {
+            try (JsonGenerator generator = itemStreamSerializer.createGenerator(contentType, outputStream)) {
+                if (lines) generator.setRootValueSeparator(null); // lines are separated explicitly
+                int[] unflushed = {0};
+                source.accept(item -> {
+                    try {
+                        itemStreamSerializer.writeItem(generator, item);
+                        if (lines) generator.writeRaw('\n');
+                        if (++unflushed[0] >= flushInterval) {
+                            generator.flush();
+                            unflushed[0] = 0;
+                        }
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
     }
 }
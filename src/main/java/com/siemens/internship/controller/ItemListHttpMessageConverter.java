@@ -0,0 +1,68 @@
+package com.siemens.internship.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.siemens.internship.model.Item;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Writes the response bodies declared as collections of items with the {@link ItemStreamSerializer},
+ * in JSON, Smile or CBOR depending on the Accept header.
+ * Registered ahead of the Jackson converters, everything else is left to them
+ */
+public class ItemListHttpMessageConverter extends AbstractGenericHttpMessageConverter<Collection<Item>> {
+
+    private final ItemStreamSerializer serializer;
+
+    public ItemListHttpMessageConverter(ItemStreamSerializer serializer) {
+        super(serializer.getSupportedMediaTypes().toArray(new MediaType[0]));
+        this.serializer = serializer;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (type == null || !canWrite(mediaType)) return false;
+
+        ResolvableType resolved = ResolvableType.forType(type);
+        return Collection.class.isAssignableFrom(resolved.toClass())
+                && Item.class.equals(resolved.asCollection().resolveGeneric(0));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(Collection<Item> items, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        try (JsonGenerator generator = serializer.createGenerator(contentType, outputMessage.getBody())) {
+            serializer.writeItems(generator, items);
+        }
+    }
+
+    @Override
+    public Collection<Item> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Item collections are only written", inputMessage);
+    }
+
+    @Override
+    protected Collection<Item> readInternal(Class<? extends Collection<Item>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Item collections are only written", inputMessage);
+    }
+}
@@ -0,0 +1,110 @@
+package com.siemens.internship.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.siemens.internship.model.Item;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes items field by field with a streaming generator, in JSON, Smile or CBOR.
+ * Unlike the default databind path, no bean introspection or serializer lookup happens per item,
+ * field names are pre-encoded and the generators' buffers come from a pool shared by all threads
+ * (including virtual threads, which would defeat a per-thread pool).
+ * The output has the same fields and formats as the Jackson serialization of Item.
+ */
+@Component
+public class ItemStreamSerializer {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType CBOR = new MediaType("application", "cbor");
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .recyclerPool(JsonRecyclerPools.sharedLockFreePool())
+            .build();
+    private final SmileFactory smileFactory = SmileFactory.builder()
+            .recyclerPool(JsonRecyclerPools.sharedLockFreePool())
+            .build();
+    private final CBORFactory cborFactory = CBORFactory.builder()
+            .recyclerPool(JsonRecyclerPools.sharedLockFreePool())
+            .build();
+
+    /**
+     * @return the media types that can be written, JSON first
+     */
+    public List<MediaType> getSupportedMediaTypes() {
+        return List.of(MediaType.APPLICATION_JSON, SMILE, CBOR);
+    }
+
+    /**
+     * Creates a generator writing to the given stream, the stream is not closed with the generator
+     * @param mediaType JSON, Smile or CBOR (any other type is written as JSON)
+     * @param outputStream where to write
+     * @return the generator, to be closed once done
+     */
+    public JsonGenerator createGenerator(MediaType mediaType, OutputStream outputStream) throws IOException {
+        JsonFactory factory = SMILE.isCompatibleWith(mediaType) ? smileFactory
+                : CBOR.isCompatibleWith(mediaType) ? cborFactory
+                : jsonFactory;
+        JsonGenerator generator = factory.createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    /**
+     * Writes the items as an array
+     */
+    public void writeItems(JsonGenerator generator, Iterable<Item> items) throws IOException {
+        generator.writeStartArray();
+        for (Item item : items) {
+            writeItem(generator, item);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes one item as an object
+     */
+    public void writeItem(JsonGenerator generator, Item item) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, ID, item.getId());
+        writeString(generator, NAME, item.getName());
+        writeString(generator, DESCRIPTION, item.getDescription());
+        writeString(generator, STATUS, item.getStatus());
+        writeString(generator, EMAIL, item.getEmail());
+        writeNumber(generator, VERSION, item.getVersion());
+        Instant updatedAt = item.getUpdatedAt();
+        writeString(generator, UPDATED_AT, updatedAt == null ? null : updatedAt.toString()); // ISO-8601, as Jackson does
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) generator.writeNull();
+        else generator.writeString(value);
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) generator.writeNull();
+        else generator.writeNumber(value);
+    }
+}
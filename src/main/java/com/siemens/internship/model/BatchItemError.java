@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * Errors of one element of a batch request
+ * @param index position of the element in the request
+ * @param messages why the element was rejected
+ */
+public record BatchItemError(int index, List<String> messages) {
+}
@@ -0,0 +1,14 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch request
+ * @param total number of elements in the request
+ * @param succeeded number of elements saved/deleted
+ * @param ids for saves, the id of each element in request order (null if it failed);
+ *      for deletes, the deleted ids
+ * @param errors the rejected elements and the reasons
+ */
+public record BatchResult(int total, int succeeded, List<Long> ids, List<BatchItemError> errors) {
+}
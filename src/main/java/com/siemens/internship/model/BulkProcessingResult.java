@@ -0,0 +1,15 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a set-based bulk processing run
+ * @param chunks number of id-range chunks (UPDATE statements) executed
+ * @param updated total number of rows whose status was changed
+ * @param changed the changed rows in id order, empty unless requested,
+ *      at most "items.processing.bulk-max-changed" of them
+ * @param changedTruncated whether more rows were changed than listed in changed
+ */
+public record BulkProcessingResult(int chunks, long updated, List<ItemStatusChange> changed,
+                                   boolean changedTruncated) {
+}
@@ -0,0 +1,12 @@
+package com.siemens.internship.model;
+
+/**
+ * Statistics of the item cache
+ * @param size number of cached items
+ * @param hits number of lookups served from the cache
+ * @param misses number of lookups that went to the database
+ * @param hitRate ratio of hits to all lookups
+ * @param evictions number of items evicted because of size or expiration
+ */
+public record CacheStatistics(long size, long hits, long misses, double hitRate, long evictions) {
+}
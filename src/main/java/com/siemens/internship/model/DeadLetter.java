@@ -0,0 +1,43 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An item whose processing failed for good (after its retries, or on a non-transient error).
+ * There is at most one dead letter per item, holding its last failure,
+ * it is removed once the item is replayed successfully.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "processing_dead_letters",
+        indexes = @Index(name = "idx_processing_dead_letters_failed_at", columnList = "failedAt"))
+public class DeadLetter {
+    public static final int MAX_REASON_LENGTH = 1000;
+
+    @Id
+    private Long itemId;
+
+    /**
+     * class name of the exception the processing failed with
+     */
+    private String exceptionType;
+
+    @Column(length = MAX_REASON_LENGTH)
+    private String reason;
+
+    /**
+     * number of attempts made before giving up
+     */
+    private int attempts;
+
+    private Instant failedAt;
+}
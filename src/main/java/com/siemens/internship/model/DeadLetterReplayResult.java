@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+/**
+ * Result of replaying the dead letters
+ * @param replayed number of dead-lettered items processed again
+ * @param succeeded items processed successfully, their dead letters were removed
+ * @param failed items that failed again, their dead letters were updated
+ * @param removed dead letters removed because their item no longer exists
+ */
+public record DeadLetterReplayResult(int replayed, int succeeded, int failed, int removed) {
+}
@@ -1,5 +1,6 @@
 package com.siemens.internship.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import jakarta.validation.constraints.NotBlank;
@@ -9,27 +10,40 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_status_id", columnList = "status, id"),
+        @Index(name = "idx_items_email", columnList = "email"),
+        @Index(name = "idx_items_name_id", columnList = "name, id"),
+        @Index(name = "idx_items_needs_processing_id", columnList = "needsProcessing, id")
+})
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50) // pooled optimizer
     private Long id;
 
     @NotBlank(message = "Name can't be blank")
     @Size(max = 100, message = "Name can't have more than 100 characters")
+    @Column(length = 100, nullable = false)
     private String name;
 
     @NotBlank(message = "Description can't be blank")
     @Size(max = 255, message = "Description can't have more than 255 characters")
+    @Column(length = 255, nullable = false)
     private String description;
 
     @NotBlank(message = "Status can't be blank")
+    @Size(max = 50, message = "Status can't have more than 50 characters")
+    @Column(length = 50, nullable = false)
     private String status;
 
     @NotBlank(message = "Email can't be blank")
@@ -37,5 +51,42 @@ public class Item {
             regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9-]+\\.[A-Za-z]{2,}$",
             message = "Invalid email format"
     )
+    @Size(max = 254, message = "Email can't have more than 254 characters")
+    @Column(length = 254, nullable = false)
     private String email;
+
+    /**
+     * Incremented on every update, used to detect concurrent modifications.
+     * Clients send back the version they read to update only that version
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Time of the last modification, set by the database writes (clients can't change it)
+     */
+    @UpdateTimestamp
+    private Instant updatedAt;
+
+    /**
+     * Whether the item was never processed or was modified since it was last processed.
+     * Set by every write and cleared by processing, so incremental runs read only these items (through an index)
+     */
+    @JsonIgnore
+    @Column(nullable = false)
+    private boolean needsProcessing = true;
+
+    public Item(Long id, String name, String description, String status, String email) {
+        this(id, name, description, status, email, null);
+    }
+
+    public Item(Long id, String name, String description, String status, String email, Long version) {
+        this(id, name, description, status, email, version, null);
+    }
+
+    public Item(Long id, String name, String description, String status, String email, Long version,
+                Instant updatedAt) {
+        this(id, name, description, status, email, version, updatedAt, true);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.siemens.internship.model;
+
+import java.time.Instant;
+
+/**
+ * A change made to an item, as recorded in the change feed
+ * @param sequence position of the change in the feed, increasing (but not necessarily without gaps)
+ * @param type what happened to the item
+ * @param itemId the item's id, 0 for a reset
+ * @param status the status of the item after the change, null if it was deleted or for a reset
+ * @param previousStatus the status the item had before a status change, null if it isn't known
+ * @param changedAt when the change was recorded
+ */
+public record ItemChange(long sequence, ItemChangeType type, long itemId, String status, String previousStatus,
+                         Instant changedAt) {
+}
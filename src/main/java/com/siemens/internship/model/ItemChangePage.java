@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * A page of the item change feed
+ * @param changes the changes of the page, ordered by sequence number
+ * @param next sequence number to pass as "after" to get the following changes
+ */
+public record ItemChangePage(List<ItemChange> changes, long next) {
+}
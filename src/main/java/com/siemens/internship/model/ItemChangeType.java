@@ -0,0 +1,17 @@
+package com.siemens.internship.model;
+
+/**
+ * Kinds of changes recorded in the item change feed
+ */
+public enum ItemChangeType {
+    /** a new item was saved */
+    CREATED,
+    /** an existing item was saved or updated */
+    UPDATED,
+    /** an item was deleted */
+    DELETED,
+    /** only the status of an item was changed, by processing */
+    STATUS_CHANGED,
+    /** the items were replaced without going through the feed (a snapshot import): consumers read them all again */
+    RESET
+}
@@ -0,0 +1,21 @@
+package com.siemens.internship.model;
+
+import java.time.Instant;
+
+/**
+ * Version of the whole item collection, read from the items table, used for conditional requests on it.
+ * Creations and deletions change the count, every write increments an item's version
+ * @param count number of items
+ * @param versionSum sum of the item versions
+ * @param lastUpdatedAt latest modification time of an item, null if there are no items
+ */
+public record ItemCollectionVersion(long count, long versionSum, Instant lastUpdatedAt) {
+
+    /**
+     * @return a tag that changes whenever an item is created, updated or deleted, on any node
+     */
+    public String tag() {
+        long updated = lastUpdatedAt == null ? 0 : lastUpdatedAt.toEpochMilli();
+        return Long.toString(count, 36) + "-" + Long.toString(versionSum, 36) + "-" + Long.toString(updated, 36);
+    }
+}
@@ -0,0 +1,49 @@
+package com.siemens.internship.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fields of an item that can be selected in a search
+ */
+public enum ItemField {
+    ID("id"), NAME("name"), DESCRIPTION("description"), STATUS("status"), EMAIL("email"), VERSION("version");
+
+    private final String attribute;
+
+    ItemField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * @return name of the Item attribute, also used as the field name in the responses
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * @param fields comma separated field names (e.g. "id,status"), null or blank for all fields
+     * @return the fields, in the given order and without duplicates
+     * @throws IllegalArgumentException if a field doesn't exist
+     */
+    public static List<ItemField> parseList(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of(values());
+        }
+
+        List<ItemField> parsed = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            ItemField field = Arrays.stream(values())
+                    .filter(value -> value.attribute.equals(name.trim().toLowerCase(Locale.ROOT)))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown field: " + name.trim()));
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        return parsed;
+    }
+}
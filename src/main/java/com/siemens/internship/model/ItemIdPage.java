@@ -0,0 +1,9 @@
+package com.siemens.internship.model;
+
+/**
+ * A page of item ids obtained with keyset pagination
+ * @param ids the ids of the page, ascending
+ * @param next cursor to pass as "after" to get the next page, null if this is the last page
+ */
+public record ItemIdPage(long[] ids, Long next) {
+}
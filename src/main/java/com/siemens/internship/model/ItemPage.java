@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+
+/**
+ * A page of items obtained with keyset pagination
+ * @param items the items of the page, ordered by id
+ * @param next cursor to pass as "after" to get the next page, null if this is the last page
+ */
+public record ItemPage(List<Item> items, Long next) {
+}
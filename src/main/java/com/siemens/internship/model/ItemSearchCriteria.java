@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+/**
+ * Filters of an item search, null filters are not applied
+ * @param status exact status
+ * @param email exact email
+ * @param emailDomain domain of the email, case-insensitive (e.g. "example.com")
+ * @param namePrefix beginning of the name, case-sensitive
+ */
+public record ItemSearchCriteria(String status, String email, String emailDomain, String namePrefix) {
+}
@@ -0,0 +1,38 @@
+package com.siemens.internship.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last result of a search page, handed to clients as an opaque string
+ * @param id id of the last result
+ * @param name name of the last result, only set when sorting by name
+ */
+public record ItemSearchCursor(long id, String name) {
+
+    /**
+     * @return the cursor as a URL-safe string
+     */
+    public String encode() {
+        String value = name == null ? Long.toString(id) : id + ":" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a string returned by {@link #encode()}
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the string is not a valid cursor
+     */
+    public static ItemSearchCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return separator < 0
+                    ? new ItemSearchCursor(Long.parseLong(value), null)
+                    : new ItemSearchCursor(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+        }
+        catch (IllegalArgumentException e) { // also thrown for invalid numbers
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
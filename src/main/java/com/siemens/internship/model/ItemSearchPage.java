@@ -0,0 +1,12 @@
+package com.siemens.internship.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search results
+ * @param items the results, each one with the selected fields only
+ * @param next cursor of the next page, null if this is the last page
+ */
+public record ItemSearchPage(List<Map<String, Object>> items, String next) {
+}
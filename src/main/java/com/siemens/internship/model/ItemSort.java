@@ -0,0 +1,36 @@
+package com.siemens.internship.model;
+
+/**
+ * Orders of the search results, all of them end with the id so that keyset paging is stable
+ */
+public enum ItemSort {
+    ID_ASC("id"), ID_DESC("-id"), NAME_ASC("name"), NAME_DESC("-name");
+
+    private final String value;
+
+    ItemSort(String value) {
+        this.value = value;
+    }
+
+    public boolean isByName() {
+        return this == NAME_ASC || this == NAME_DESC;
+    }
+
+    public boolean isDescending() {
+        return this == ID_DESC || this == NAME_DESC;
+    }
+
+    /**
+     * @param value "id" or "name", prefixed with "-" for the descending order
+     * @return the matching order
+     * @throws IllegalArgumentException if the value is not a supported order
+     */
+    public static ItemSort parse(String value) {
+        for (ItemSort sort : values()) {
+            if (sort.value.equals(value)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.siemens.internship.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Item counts
+ * @param total number of items
+ * @param byStatus number of items per status, statuses without items are left out
+ * @param reconciledAt when the counts were last checked against the database
+ * @param reconciliationPending true if some changes since then couldn't be counted exactly
+ *      (e.g. updates and deletes, whose previous status isn't read), the counts are then corrected shortly
+ */
+public record ItemStatistics(long total, Map<String, Long> byStatus, Instant reconciledAt,
+                             boolean reconciliationPending) {
+}
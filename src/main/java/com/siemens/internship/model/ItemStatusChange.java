@@ -0,0 +1,9 @@
+package com.siemens.internship.model;
+
+/**
+ * Projection of an item whose status is changed by a bulk update, or of a deleted item
+ * @param id the item's id
+ * @param previousStatus the status the item had before the update or the deletion
+ */
+public record ItemStatusChange(Long id, String previousStatus) {
+}
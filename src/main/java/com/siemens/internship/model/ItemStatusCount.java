@@ -0,0 +1,9 @@
+package com.siemens.internship.model;
+
+/**
+ * Number of items having a status
+ * @param status the status
+ * @param count number of items with that status
+ */
+public record ItemStatusCount(String status, long count) {
+}
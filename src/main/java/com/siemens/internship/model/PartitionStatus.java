@@ -0,0 +1,13 @@
+package com.siemens.internship.model;
+
+/**
+ * States of an id-range partition of a partitioned processing run
+ */
+public enum PartitionStatus {
+    /** not claimed by any node yet */
+    PENDING,
+    /** leased by a node, can be claimed again once the lease expires */
+    CLAIMED,
+    /** processed */
+    DONE
+}
@@ -0,0 +1,12 @@
+package com.siemens.internship.model;
+
+/**
+ * Progress of a partitioned processing run
+ * @param runId the run's id
+ * @param pending partitions not claimed yet
+ * @param claimed partitions being processed (or whose lease hasn't expired yet)
+ * @param done partitions processed
+ * @param processed number of items updated by the processed partitions
+ */
+public record PartitionedRunStatus(String runId, long pending, long claimed, long done, long processed) {
+}
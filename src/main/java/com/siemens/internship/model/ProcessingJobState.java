@@ -0,0 +1,19 @@
+package com.siemens.internship.model;
+
+/**
+ * Lifecycle states of an item processing job
+ */
+public enum ProcessingJobState {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    /**
+     * @return true if the job will not change anymore
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
@@ -0,0 +1,21 @@
+package com.siemens.internship.model;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of the progress of an item processing job
+ * @param jobId the job's id
+ * @param state current state of the job
+ * @param total number of items to be processed, 0 until the job starts
+ * @param processed number of items processed successfully
+ * @param failed number of items that couldn't be processed
+ * @param notFound number of items deleted before they were processed
+ * @param remaining number of items not handled yet
+ * @param throughput handled items per second since the job started
+ * @param startedAt when the job started, null if it hasn't started yet
+ * @param finishedAt when the job finished, null if it is still running
+ */
+public record ProcessingJobStatus(String jobId, ProcessingJobState state, long total, long processed,
+                                  long failed, long notFound, long remaining, double throughput,
+                                  Instant startedAt, Instant finishedAt) {
+}
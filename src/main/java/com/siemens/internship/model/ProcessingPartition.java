@@ -0,0 +1,57 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An id range of a partitioned processing run.
+ * Nodes claim partitions by taking a time-limited lease on them,
+ * so a partition whose node died is picked up again by another node once its lease expires.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "processing_partitions", indexes = {
+        @Index(name = "idx_processing_partitions_run_id", columnList = "runId"),
+        @Index(name = "idx_processing_partitions_status", columnList = "status, leaseExpiresAt")
+})
+public class ProcessingPartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(length = 36)
+    private String runId;
+
+    private Long fromId;
+
+    private Long toId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PartitionStatus status;
+
+    /**
+     * id of the node holding the lease, null while pending
+     */
+    private String owner;
+
+    private Instant leaseExpiresAt;
+
+    /**
+     * number of items updated when the partition was processed
+     */
+    private long processed;
+
+    public ProcessingPartition(String runId, Long fromId, Long toId) {
+        this.runId = runId;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.status = PartitionStatus.PENDING;
+    }
+}
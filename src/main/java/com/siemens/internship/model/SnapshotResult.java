@@ -0,0 +1,11 @@
+package com.siemens.internship.model;
+
+/**
+ * Outcome of a snapshot export or import
+ * @param file the snapshot file
+ * @param rows number of items written or read
+ * @param bytes size of the snapshot file
+ * @param durationMillis how long the export or import took
+ */
+public record SnapshotResult(String file, long rows, long bytes, long durationMillis) {
+}
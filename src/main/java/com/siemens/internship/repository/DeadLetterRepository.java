@@ -0,0 +1,44 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.DeadLetter;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long> {
+
+    /**
+     * @return the dead letters, oldest failure first
+     */
+    List<DeadLetter> findByOrderByFailedAtAsc(Limit limit);
+
+    /**
+     * Deletes the dead letter of an item with a single statement
+     * @return 1 if the item had a dead letter, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeadLetter d WHERE d.itemId = :itemId")
+    int deleteByItemId(@Param("itemId") Long itemId);
+
+    /**
+     * Deletes the dead letters of the items of an id range
+     * @return number of deleted dead letters
+     */
+    @Modifying
+    @Query("DELETE FROM DeadLetter d WHERE d.itemId BETWEEN :fromId AND :toId")
+    int deleteByItemIdInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Deletes the dead letters of items that were deleted since they failed
+     * @return number of deleted dead letters
+     */
+    @Modifying
+    @Query("DELETE FROM DeadLetter d WHERE NOT EXISTS (SELECT i.id FROM Item i WHERE i.id = d.itemId)")
+    int deleteOrphans();
+}
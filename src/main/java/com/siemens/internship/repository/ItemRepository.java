@@ -1,16 +1,229 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatusChange;
+import com.siemens.internship.model.ItemCollectionVersion;
+import com.siemens.internship.model.ItemStatusCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemSearchRepository {
 
     /**
      * @return all item ids from the db (without loading full entities)
      */
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    /**
+     * Keyset pagination of the ids, without loading full entities
+     * @param afterId only ids greater than this one are returned
+     * @param limit maximum number of ids returned
+     * @return the ids following afterId, ordered
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Finds the id at a given position among the ids following afterId, walking the primary key index only
+     * @param afterId only ids greater than this one are counted
+     * @param offset number of ids skipped, 0 for the first id after afterId
+     * @return the id, null if there are no more than offset ids after afterId
+     */
+    @Query(value = "SELECT id FROM items WHERE id > :afterId ORDER BY id LIMIT 1 OFFSET :offset", nativeQuery = true)
+    Long findIdAfter(@Param("afterId") Long afterId, @Param("offset") int offset);
+
+    /**
+     * @return ids of the items never processed, or modified since they were last processed
+     *      (read from the needs-processing index)
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.needsProcessing = true ORDER BY i.id")
+    List<Long> findIdsToProcess();
+
+    /**
+     * Keyset pagination of the ids of the items never processed, or modified since they were last processed
+     * (read from the needs-processing index)
+     * @param afterId only ids greater than this one are returned
+     * @param limit maximum number of ids returned
+     * @return the matching ids following afterId, ordered
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.needsProcessing = true AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsToProcessAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Keyset pagination of the ids of the items with the given status (read from the status index)
+     * @param afterId only ids greater than this one are returned
+     * @param limit maximum number of ids returned
+     * @return the matching ids following afterId, ordered
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.status = :status AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsByStatus(@Param("status") String status, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Keyset pagination of the ids of the items with the given email (read from the email index)
+     * @param afterId only ids greater than this one are returned
+     * @param limit maximum number of ids returned
+     * @return the matching ids following afterId, ordered
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.email = :email AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsByEmail(@Param("email") String email, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * @return the number of items, the sum of their versions and their latest modification time,
+     *      which change with every write
+     */
+    @Query("SELECT new com.siemens.internship.model.ItemCollectionVersion(COUNT(i), COALESCE(SUM(i.version), 0), " +
+            "MAX(i.updatedAt)) FROM Item i")
+    ItemCollectionVersion findCollectionVersion();
+
+    /**
+     * @return the number of items per status (read from the status index)
+     */
+    @Query("SELECT new com.siemens.internship.model.ItemStatusCount(i.status, COUNT(i)) FROM Item i GROUP BY i.status")
+    List<ItemStatusCount> countByStatus();
+
+    /**
+     * @return the largest item id, or null if the table is empty
+     */
+    @Query("SELECT MAX(i.id) FROM Item i")
+    Long findMaxId();
+
+    /**
+     * Sets the status of every item in the given id range with a single statement
+     * (rows that already have the target status are left untouched, rows without a status are updated);
+     * the updated rows no longer need processing
+     * @param fromId lower bound of the range (inclusive)
+     * @param toId upper bound of the range (inclusive)
+     * @param status the new status
+     * @return number of rows changed
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.status = :status, i.version = i.version + 1, i.needsProcessing = false, " +
+            "i.updatedAt = instant " +
+            "WHERE i.id BETWEEN :fromId AND :toId AND (i.status <> :status OR i.status IS NULL)")
+    int updateStatusInRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("status") String status);
+
+    /**
+     * Sets the status of every item in the given id range with a single statement, like {@link #updateStatusInRange},
+     * reading the changed rows from the same statement (H2's OLD TABLE of the UPDATE)
+     * @return the id and previous status of each changed row, ordered by id
+     */
+    @Query(value = "SELECT id, status FROM OLD TABLE (UPDATE items SET status = :status, version = version + 1, " +
+            "needs_processing = FALSE, updated_at = :updatedAt " +
+            "WHERE id BETWEEN :fromId AND :toId AND (status <> :status OR status IS NULL)) ORDER BY id",
+            nativeQuery = true)
+    List<Object[]> updateStatusInRangeReturningStatus(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                                                      @Param("status") String status,
+                                                      @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Sets the status of every item in the given id range with a single statement, like {@link #updateStatusInRange}
+     * @param fromId lower bound of the range (inclusive)
+     * @param toId upper bound of the range (inclusive)
+     * @param status the new status
+     * @return the id and the status each changed item had
+     */
+    default List<ItemStatusChange> updateStatusInRangeReturningChanges(Long fromId, Long toId, String status) {
+        return updateStatusInRangeReturningStatus(fromId, toId, status, Instant.now()).stream()
+                .map(row -> new ItemStatusChange(((Number) row[0]).longValue(), (String) row[1]))
+                .toList();
+    }
+
+    /**
+     * Keyset pagination on the id column
+     * @param afterId only items with a greater id are returned
+     * @param limit maximum number of items returned
+     * @return the items following afterId, ordered by id
+     */
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Streams all items ordered by id, fetching rows from the db in batches.
+     * Must be consumed inside a transaction and closed afterwards
+     * @return stream of all items
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i FROM Item i ORDER BY i.id")
+    Stream<Item> streamAll();
+
+    /**
+     * Deletes the items with the given ids with a single statement,
+     * reading the deleted rows from it (H2's OLD TABLE of the DELETE)
+     * @return the id and status of each deleted row
+     */
+    @Query(value = "SELECT id, status FROM OLD TABLE (DELETE FROM items WHERE id IN (:ids))", nativeQuery = true)
+    List<Object[]> deleteByIdInReturningStatus(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the items with the given ids with a single statement
+     * @return the id and the status each deleted item had
+     */
+    default List<ItemStatusChange> deleteByIdIn(Collection<Long> ids) {
+        return deleteByIdInReturningStatus(ids).stream()
+                .map(row -> new ItemStatusChange(((Number) row[0]).longValue(), (String) row[1]))
+                .toList();
+    }
+
+    /**
+     * Overwrites an item with a single statement, whatever its current version,
+     * reading the status it had from the same statement (H2's OLD TABLE of the UPDATE)
+     * @return the previous status, empty if the item doesn't exist
+     */
+    @Query(value = "SELECT status FROM OLD TABLE (UPDATE items SET name = :name, description = :description, " +
+            "status = :status, email = :email, version = version + 1, updated_at = :updatedAt, " +
+            "needs_processing = TRUE WHERE id = :id)", nativeQuery = true)
+    Optional<String> updateById(@Param("id") Long id, @Param("name") String name,
+                                @Param("description") String description, @Param("status") String status,
+                                @Param("email") String email, @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Updates an item with a single statement, only if it still has the given version,
+     * reading the status it had from the same statement (H2's OLD TABLE of the UPDATE)
+     * @return the previous status, empty if the item doesn't exist or has another version
+     */
+    @Query(value = "SELECT status FROM OLD TABLE (UPDATE items SET name = :name, description = :description, " +
+            "status = :status, email = :email, version = version + 1, updated_at = :updatedAt, " +
+            "needs_processing = TRUE WHERE id = :id AND version = :version)", nativeQuery = true)
+    Optional<String> updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version,
+                                          @Param("name") String name, @Param("description") String description,
+                                          @Param("status") String status, @Param("email") String email,
+                                          @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Updates an item with a single statement,
+     * checking its version only if the given item has one.
+     * The item's modification time is set to the one stored
+     * @param id the id of the item to be updated
+     * @param item the new values (and, optionally, the expected version)
+     * @return the status the item had, empty if it wasn't updated
+     */
+    default Optional<String> update(Long id, Item item) {
+        item.setUpdatedAt(Instant.now());
+        if (item.getVersion() == null) {
+            return updateById(id, item.getName(), item.getDescription(), item.getStatus(), item.getEmail(),
+                    item.getUpdatedAt());
+        }
+        return updateByIdAndVersion(id, item.getVersion(), item.getName(), item.getDescription(),
+                item.getStatus(), item.getEmail(), item.getUpdatedAt());
+    }
+
+    /**
+     * Deletes an item with a single statement,
+     * reading the status it had from the same statement (H2's OLD TABLE of the DELETE)
+     * @return the status the item had, empty if it doesn't exist
+     */
+    @Query(value = "SELECT status FROM OLD TABLE (DELETE FROM items WHERE id = :id)", nativeQuery = true)
+    Optional<String> removeById(@Param("id") Long id);
 }
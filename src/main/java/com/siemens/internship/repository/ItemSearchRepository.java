@@ -0,0 +1,27 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemSearchCriteria;
+import com.siemens.internship.model.ItemSearchCursor;
+import com.siemens.internship.model.ItemSort;
+import jakarta.persistence.Tuple;
+
+import java.util.List;
+
+/**
+ * Search queries of {@link ItemRepository} selecting only some columns of the items
+ */
+public interface ItemSearchRepository {
+
+    /**
+     * Searches items, reading only the selected columns (and the sort keys) instead of whole entities
+     * @param criteria the filters
+     * @param fields the columns to read, each tuple element is aliased with the attribute name
+     * @param sort the order of the results
+     * @param after position of the last result of the previous page, null for the first page
+     * @param limit maximum number of results
+     * @return the results, as tuples holding the selected fields and the sort keys
+     */
+    List<Tuple> search(ItemSearchCriteria criteria, List<ItemField> fields, ItemSort sort,
+                       ItemSearchCursor after, int limit);
+}
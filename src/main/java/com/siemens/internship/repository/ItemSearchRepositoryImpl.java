@@ -0,0 +1,111 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemSearchCriteria;
+import com.siemens.internship.model.ItemSearchCursor;
+import com.siemens.internship.model.ItemSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Criteria API implementation of the item search, picked up by Spring Data as a fragment of ItemRepository
+ */
+class ItemSearchRepositoryImpl implements ItemSearchRepository {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final EntityManager entityManager;
+
+    ItemSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Tuple> search(ItemSearchCriteria criteria, List<ItemField> fields, ItemSort sort,
+                              ItemSearchCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Item> item = query.from(Item.class);
+
+        // the sort keys are needed to build the next cursor, even if they weren't asked for
+        Set<String> attributes = new LinkedHashSet<>();
+        fields.forEach(field -> attributes.add(field.getAttribute()));
+        attributes.add("id");
+        if (sort.isByName()) attributes.add("name");
+
+        List<Selection<?>> selections = new ArrayList<>();
+        attributes.forEach(attribute -> selections.add(item.get(attribute).alias(attribute)));
+        query.multiselect(selections);
+
+        List<Predicate> predicates = filters(cb, item, criteria);
+        if (after != null) {
+            predicates.add(keyset(cb, item, sort, after));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        if (sort.isByName()) {
+            query.orderBy(order(cb, item.get("name"), sort), order(cb, item.get("id"), sort));
+        }
+        else {
+            query.orderBy(order(cb, item.get("id"), sort));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<Item> item, ItemSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.status() != null) {
+            predicates.add(cb.equal(item.get("status"), criteria.status()));
+        }
+        if (criteria.email() != null) {
+            predicates.add(cb.equal(item.get("email"), criteria.email()));
+        }
+        if (criteria.emailDomain() != null) {
+            predicates.add(cb.like(cb.lower(item.get("email")),
+                    "%@" + escapeLike(criteria.emailDomain().toLowerCase(Locale.ROOT)), LIKE_ESCAPE));
+        }
+        if (criteria.namePrefix() != null) {
+            // a prefix pattern can use the name index
+            predicates.add(cb.like(item.get("name"), escapeLike(criteria.namePrefix()) + "%", LIKE_ESCAPE));
+        }
+        return predicates;
+    }
+
+    /**
+     * @return a predicate keeping the rows that come after the cursor in the given order
+     */
+    private static Predicate keyset(CriteriaBuilder cb, Root<Item> item, ItemSort sort, ItemSearchCursor after) {
+        Path<Long> id = item.get("id");
+        Predicate afterId = sort.isDescending() ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id());
+        if (!sort.isByName()) {
+            return afterId;
+        }
+
+        Path<String> name = item.get("name");
+        Predicate afterName = sort.isDescending() ? cb.lessThan(name, after.name()) : cb.greaterThan(name, after.name());
+        return cb.or(afterName, cb.and(cb.equal(name, after.name()), afterId));
+    }
+
+    private static jakarta.persistence.criteria.Order order(CriteriaBuilder cb, Path<?> path, ItemSort sort) {
+        return sort.isDescending() ? cb.desc(path) : cb.asc(path);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
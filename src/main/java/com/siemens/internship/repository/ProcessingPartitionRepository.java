@@ -0,0 +1,73 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingPartition;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProcessingPartitionRepository extends JpaRepository<ProcessingPartition, Long> {
+
+    /**
+     * Locks claimable partitions: pending ones and ones whose lease expired.
+     * Rows locked by other nodes are skipped (SELECT ... FOR UPDATE SKIP LOCKED, requested with the lock timeout -2)
+     * on databases that support it, on the others the query waits for the lock instead
+     * @param now the current time
+     * @param limit maximum number of partitions returned
+     * @return the claimable partitions, oldest first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT p FROM ProcessingPartition p WHERE p.status = 'PENDING' " +
+            "OR (p.status = 'CLAIMED' AND p.leaseExpiresAt < :now) ORDER BY p.id")
+    List<ProcessingPartition> findClaimable(@Param("now") Instant now, Limit limit);
+
+    /**
+     * Takes the lease of a partition, only if it is still claimable
+     * @return 1 if the lease was taken, 0 if another node claimed the partition first
+     */
+    @Modifying
+    @Query("UPDATE ProcessingPartition p SET p.status = 'CLAIMED', p.owner = :owner, p.leaseExpiresAt = :expiresAt " +
+            "WHERE p.id = :id AND (p.status = 'PENDING' OR (p.status = 'CLAIMED' AND p.leaseExpiresAt < :now))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt,
+              @Param("now") Instant now);
+
+    /**
+     * Extends the lease of a partition, only if the given node still holds it
+     * @return 1 if the lease was extended, 0 if it was lost or the partition is done
+     */
+    @Modifying
+    @Query("UPDATE ProcessingPartition p SET p.leaseExpiresAt = :expiresAt " +
+            "WHERE p.id = :id AND p.owner = :owner AND p.status = 'CLAIMED'")
+    int renew(@Param("id") Long id, @Param("owner") String owner, @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Marks a partition as processed, only if the given node still holds its lease
+     * @return 1 if the partition was completed, 0 if its lease was lost
+     */
+    @Modifying
+    @Query("UPDATE ProcessingPartition p SET p.status = 'DONE', p.processed = :processed " +
+            "WHERE p.id = :id AND p.owner = :owner AND p.status = 'CLAIMED'")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("processed") long processed);
+
+    List<ProcessingPartition> findByRunId(String runId);
+
+    /**
+     * Deletes the partitions of the runs whose partitions are all done and whose last lease expired before the given time
+     * @return number of partitions deleted
+     */
+    @Modifying
+    @Query("DELETE FROM ProcessingPartition p WHERE p.runId IN (SELECT q.runId FROM ProcessingPartition q " +
+            "GROUP BY q.runId HAVING SUM(CASE WHEN q.status = 'DONE' THEN 0 ELSE 1 END) = 0 " +
+            "AND MAX(q.leaseExpiresAt) < :before)")
+    int deleteFinishedRuns(@Param("before") Instant before);
+}
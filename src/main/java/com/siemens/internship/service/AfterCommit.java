@@ -0,0 +1,32 @@
+package com.siemens.internship.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers the updates of the in-memory state (cache, index, counters) to the commit of the current transaction,
+ * so that they never show a change that is rolled back, nor one other transactions can't read yet
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs the action once the current transaction commits (not at all if it rolls back),
+     * right away if there is no transaction
+     * @param action the action to run
+     */
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
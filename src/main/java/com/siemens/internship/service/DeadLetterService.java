@@ -0,0 +1,88 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.DeadLetter;
+import com.siemens.internship.repository.DeadLetterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Service class keeping track of the items whose processing failed,
+ * so that only they need to be processed again
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class DeadLetterService {
+
+    private final DeadLetterRepository deadLetterRepository;
+
+    /**
+     * Records the failure of an item, replacing its previous dead letter if any.
+     * A failure to record is only logged, it must not hide the original failure
+     * @param itemId the failed item's id
+     * @param failure the exception the processing failed with
+     * @param attempts number of attempts made
+     */
+    public void record(Long itemId, Throwable failure, int attempts) {
+        String reason = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        if (reason.length() > DeadLetter.MAX_REASON_LENGTH) {
+            reason = reason.substring(0, DeadLetter.MAX_REASON_LENGTH);
+        }
+
+        try {
+            deadLetterRepository.save(new DeadLetter(itemId, failure.getClass().getName(), reason, attempts, Instant.now()));
+        }
+        catch (RuntimeException e) {
+            log.error("Could not record the failure of item {}", itemId, e);
+        }
+    }
+
+    /**
+     * @param limit maximum number of dead letters returned
+     * @return the dead letters, oldest failure first
+     */
+    public List<DeadLetter> findAll(int limit) {
+        return deadLetterRepository.findByOrderByFailedAtAsc(Limit.of(limit));
+    }
+
+    /**
+     * Removes the dead letter of an item that was processed successfully, if any.
+     * A failure to remove is only logged, the item was processed
+     * @param itemId the item's id
+     */
+    public void remove(Long itemId) {
+        try {
+            deadLetterRepository.deleteByItemId(itemId);
+        }
+        catch (RuntimeException e) {
+            log.error("Could not remove the dead letter of item {}", itemId, e);
+        }
+    }
+
+    /**
+     * Removes the dead letters of the items of an id range, in the caller's transaction if there is one
+     * @param fromId lower bound of the range (inclusive)
+     * @param toId upper bound of the range (inclusive)
+     * @return number of removed dead letters
+     */
+    @Transactional
+    public int removeInRange(Long fromId, Long toId) {
+        return deadLetterRepository.deleteByItemIdInRange(fromId, toId);
+    }
+
+    /**
+     * Removes the dead letters of items that no longer exist
+     * @return number of removed dead letters
+     */
+    @Transactional
+    public int removeOrphans() {
+        return deadLetterRepository.deleteOrphans();
+    }
+}
@@ -0,0 +1,34 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Example processing stage: trims the emails and lower-cases them.
+ * Rewrites user data (the local part of an email is case-sensitive), so it only runs
+ * if "items.processing.stages.normalize-email.enabled" is true
+ */
+@Component
+@Order(100)
+@ConditionalOnProperty(prefix = "items.processing.stages.normalize-email", name = "enabled", havingValue = "true")
+public class EmailNormalizationProcessor implements ItemProcessor {
+
+    @Override
+    public String name() {
+        return "normalize-email";
+    }
+
+    @Override
+    public void process(List<Item> items) {
+        for (Item item : items) {
+            if (item.getEmail() != null) {
+                item.setEmail(item.getEmail().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.BatchItemError;
+import com.siemens.internship.model.BatchResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service class for creating, upserting and deleting items in bulk.
+ * Every element is validated with the Item constraints and the valid ones are persisted
+ * in chunks, each chunk in its own transaction.
+ */
+@Service
+public class ItemBatchService {
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemValidator validator;
+    private final ItemCache itemCache;
+    private final ItemStatusCounters statusCounters;
+    private final ItemIndex itemIndex;
+    private final ItemChangeFeed changeFeed;
+    private final int chunkSize;
+
+    public ItemBatchService(ItemRepository itemRepository, TransactionTemplate transactionTemplate,
+                            ItemValidator validator, ItemCache itemCache, ItemStatusCounters statusCounters, ItemIndex itemIndex,
+                            ItemChangeFeed changeFeed,
+                            @Value("${items.batch.chunk-size:500}") int chunkSize) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.itemCache = itemCache;
+        this.statusCounters = statusCounters;
+        this.itemIndex = itemIndex;
+        this.changeFeed = changeFeed;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Validates and saves the given items, in chunks.
+     * Items are read lazily, so at most one chunk is held in memory besides the result;
+     * if reading an item fails (e.g. malformed input), it is reported and the rest is skipped
+     * @param items the items to be saved
+     * @param upsert if true, items with an id update the existing item,
+     *      otherwise every item is created as a new one
+     * @return the id of each saved item and the errors of the rejected ones
+     */
+    public BatchResult saveAll(Iterator<Item> items, boolean upsert) {
+        List<Long> ids = new ArrayList<>();
+        List<BatchItemError> errors = new ArrayList<>();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (true) {
+            Item item;
+            try {
+                if (!items.hasNext()) break;
+                item = items.next();
+            }
+            catch (RuntimeException e) {
+                errors.add(new BatchItemError(index, List.of("Malformed item: " + e.getMessage())));
+                break;
+            }
+
+            ids.add(null);
+            List<String> violations = validate(item);
+            if (!violations.isEmpty()) {
+                errors.add(new BatchItemError(index, violations));
+            }
+            else {
+                if (!upsert) {
+                    item.setId(null);
+                    item.setVersion(null);
+                }
+                chunk.add(item);
+                chunkIndexes.add(index);
+            }
+
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, chunkIndexes, ids, errors, upsert);
+            }
+            index++;
+        }
+        flush(chunk, chunkIndexes, ids, errors, upsert);
+
+        int succeeded = (int) ids.stream().filter(Objects::nonNull).count();
+        errors.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return new BatchResult(index, succeeded, ids, errors);
+    }
+
+    /**
+     * Deletes the items with the given ids, in chunks
+     * @param ids ids of the items to be deleted
+     * @return the deleted ids, and an error for each id that doesn't exist, is repeated or couldn't be deleted
+     */
+    public BatchResult deleteAll(List<Long> ids) {
+        List<Long> deleted = new ArrayList<>();
+        List<BatchItemError> errors = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        Set<Long> requested = new HashSet<>();
+
+        for (int index = 0; index < ids.size(); index++) {
+            Long id = ids.get(index);
+            if (!requested.add(id)) {
+                errors.add(new BatchItemError(index, List.of("Duplicate id")));
+                continue;
+            }
+            chunk.add(id);
+            chunkIndexes.add(index);
+            if (chunk.size() >= chunkSize) {
+                delete(chunk, chunkIndexes, deleted, errors);
+            }
+        }
+        delete(chunk, chunkIndexes, deleted, errors);
+
+        errors.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return new BatchResult(ids.size(), deleted.size(), deleted, errors);
+    }
+
+    /**
+     * Deletes a chunk of distinct ids in one transaction and records the deleted ones.
+     * If the transaction fails each id is deleted on its own, so that one failing row doesn't fail the others
+     */
+    private void delete(List<Long> chunk, List<Integer> chunkIndexes, List<Long> deleted,
+                        List<BatchItemError> errors) {
+        if (chunk.isEmpty()) return;
+
+        Map<Long, String> existing = new HashMap<>(); // status of each deleted item
+        Set<Long> failed = new HashSet<>();
+        try {
+            existing.putAll(transactionTemplate.execute(status -> deleteExisting(chunk)));
+        }
+        catch (RuntimeException chunkFailure) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Long id = chunk.get(i);
+                try {
+                    existing.putAll(transactionTemplate.execute(status -> deleteExisting(List.of(id))));
+                }
+                catch (RuntimeException e) {
+                    failed.add(id);
+                    errors.add(new BatchItemError(chunkIndexes.get(i),
+                            List.of("Couldn't be deleted: " + e.getMessage())));
+                }
+            }
+        }
+        itemCache.invalidateAll(chunk);
+        existing.values().forEach(statusCounters::deleted);
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = chunk.get(i);
+            if (existing.containsKey(id)) {
+                deleted.add(id);
+                itemIndex.remove(id);
+            }
+            else if (!failed.contains(id)) {
+                errors.add(new BatchItemError(chunkIndexes.get(i), List.of("Item not found")));
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    /**
+     * Deletes the given ids with a single statement, which also returns the deleted rows
+     * @return the status of each of the given ids that existed, now deleted
+     */
+    private Map<Long, String> deleteExisting(List<Long> ids) {
+        Map<Long, String> found = new HashMap<>();
+        itemRepository.deleteByIdIn(ids).forEach(row -> found.put(row.id(), row.previousStatus()));
+        if (!found.isEmpty()) {
+            changeFeed.recorded(List.of(), List.of(), ids.stream().filter(found::containsKey).toList());
+        }
+        return found;
+    }
+
+    private List<String> validate(Item item) {
+        if (item == null) {
+            return List.of("Item can't be null");
+        }
+        return validator.getMessages(item);
+    }
+
+    /**
+     * Saves a chunk in one transaction and records the ids at the items' positions.
+     * When upserting, items with an id are updated with a single statement each (without reading them),
+     * if they don't exist they are created instead; new items are inserted together.
+     * If the transaction fails each item is saved on its own, so that one failing item doesn't fail the others
+     */
+    private void flush(List<Item> chunk, List<Integer> chunkIndexes, List<Long> ids, List<BatchItemError> errors,
+                       boolean upsert) {
+        if (chunk.isEmpty()) return;
+
+        // a rolled back attempt may have changed them
+        List<Long> requestedIds = chunk.stream().map(Item::getId).toList();
+        List<Long> requestedVersions = chunk.stream().map(Item::getVersion).toList();
+        try {
+            save(chunk, chunkIndexes, ids, errors, upsert);
+        }
+        catch (RuntimeException chunkFailure) {
+            for (int i = 0; i < chunk.size(); i++) {
+                Item item = chunk.get(i);
+                int index = chunkIndexes.get(i);
+                ids.set(index, null);
+                item.setId(requestedIds.get(i));
+                item.setVersion(requestedVersions.get(i));
+                try {
+                    save(List.of(item), List.of(index), ids, errors, upsert);
+                }
+                catch (RuntimeException e) {
+                    ids.set(index, null);
+                    errors.add(new BatchItemError(index, List.of("Couldn't be saved: " + e.getMessage())));
+                }
+            }
+        }
+
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    /**
+     * Saves the given items in one transaction, then updates the counters, the cache and the index
+     */
+    private void save(List<Item> items, List<Integer> indexes, List<Long> ids, List<BatchItemError> errors,
+                      boolean upsert) {
+        List<Item> inserted = new ArrayList<>();
+        List<Item> updated = new ArrayList<>();
+        List<String> previousStatuses = new ArrayList<>(); // of the updated items
+        List<BatchItemError> conflicts = transactionTemplate.execute(status -> {
+            List<BatchItemError> chunkConflicts = new ArrayList<>();
+            List<Item> inserts = new ArrayList<>();
+            List<Integer> insertIndexes = new ArrayList<>();
+
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                int index = indexes.get(i);
+
+                if (upsert && item.getId() != null) {
+                    Optional<String> previousStatus = itemRepository.update(item.getId(), item);
+                    if (previousStatus.isPresent()) {
+                        ids.set(index, item.getId());
+                        updated.add(item);
+                        previousStatuses.add(previousStatus.get());
+                        continue;
+                    }
+                    if (item.getVersion() != null && itemRepository.existsById(item.getId())) {
+                        chunkConflicts.add(new BatchItemError(index,
+                                List.of("Item was modified by another request")));
+                        continue;
+                    }
+                    // doesn't exist, so it is created
+                    item.setId(null);
+                    item.setVersion(null);
+                }
+                inserts.add(item);
+                insertIndexes.add(index);
+            }
+
+            List<Item> saved = itemRepository.saveAll(inserts);
+            for (int i = 0; i < saved.size(); i++) {
+                ids.set(insertIndexes.get(i), saved.get(i).getId());
+            }
+            inserted.addAll(saved);
+            changeFeed.recorded(inserted, updated, List.of()); // in the outbox within the chunk's transaction
+            return chunkConflicts;
+        });
+
+        errors.addAll(conflicts);
+        inserted.forEach(item -> statusCounters.created(item.getStatus()));
+        for (int i = 0; i < updated.size(); i++) {
+            statusCounters.statusChanged(previousStatuses.get(i), updated.get(i).getStatus());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Long id = ids.get(indexes.get(i));
+            if (id != null) {
+                itemCache.invalidate(id); // updated rows have a new, unknown version
+                itemIndex.put(items.get(i)); // but their status and email are known
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.siemens.internship.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.siemens.internship.config.ItemCacheProperties;
+import com.siemens.internship.model.CacheStatistics;
+import com.siemens.internship.model.Item;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of items by id, evicting by size and TTL.
+ * Items are copied in and out, so callers never share (and modify) the cached instance.
+ * Writes done through the services of this node keep it up to date, an older version never replaces a newer one.
+ * Writes of other nodes (or partitioned runs processed elsewhere) aren't seen until the TTL expires,
+ * so the cache is meant for a single node and is disabled by default ("items.cache.enabled").
+ * Its statistics are also published as "cache.*" meters tagged with cache=items.
+ */
+@Component
+public class ItemCache implements MeterBinder {
+    private final Cache<Long, Item> cache;
+
+    public ItemCache(ItemCacheProperties properties) {
+        this.cache = properties.isEnabled()
+                ? Caffeine.newBuilder()
+                    .maximumSize(properties.getMaxSize())
+                    .expireAfterWrite(properties.getTtl())
+                    .recordStats()
+                    .build()
+                : null;
+    }
+
+    /**
+     * Returns the cached item, loading (and caching) it if it isn't cached
+     * @param id the item's id
+     * @param loader loads the item from the database
+     * @return Optional of item, if found, empty Optional otherwise
+     */
+    public Optional<Item> get(Long id, Function<Long, Optional<Item>> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        Item cached = cache.get(id, key -> loader.apply(key).map(ItemCache::copy).orElse(null));
+        return Optional.ofNullable(cached).map(ItemCache::copy);
+    }
+
+    /**
+     * Caches the current state of an item that was just saved, unless a newer version is already cached
+     * (the after-commit puts of concurrent writes can run in any order)
+     * @param item the saved item
+     */
+    public void put(Item item) {
+        if (cache != null && item != null && item.getId() != null) {
+            cache.asMap().merge(item.getId(), copy(item), (cached, saved) -> isOlder(saved, cached) ? cached : saved);
+        }
+    }
+
+    private static boolean isOlder(Item item, Item other) {
+        return item.getVersion() != null && other.getVersion() != null && item.getVersion() < other.getVersion();
+    }
+
+    public void invalidate(Long id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        if (cache != null) {
+            cache.invalidateAll(ids);
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction counts since startup (all zero if the cache is disabled)
+     */
+    public CacheStatistics getStatistics() {
+        if (cache == null) {
+            return new CacheStatistics(0, 0, 0, 0, 0);
+        }
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "items");
+        }
+    }
+
+    private static Item copy(Item item) {
+        return new Item(item.getId(), item.getName(), item.getDescription(), item.getStatus(), item.getEmail(),
+                item.getVersion(), item.getUpdatedAt(), item.isNeedsProcessing());
+    }
+}
@@ -0,0 +1,449 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemChangeFeedProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemChangePage;
+import com.siemens.internship.model.ItemChangeType;
+import com.siemens.internship.model.ItemStatusChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered feed of the changes made to the items through the services ("items.changes.enabled"),
+ * so that consumers follow the changes instead of reading all the items again.
+ * Each change gets the next sequence number and is written to the item_changes outbox table
+ * (in the transaction of the change, when there is one). Once that transaction commits, the change is published
+ * to a ring buffer holding the most recent changes, in sequence order: a change waits for the transactions holding
+ * lower numbers to end, and the numbers of rolled back changes are skipped.
+ * Reads from an offset are served from the ring buffer, consumers further behind catch up from the outbox,
+ * where the changes are kept for "items.changes.retention".
+ * The sequence numbers are assigned in memory, so only one node may record the changes: when enabled, the feed
+ * takes a lease in the item_change_feed_writer table and refuses to start while another node holds it
+ * (a rolling restart has to stop the old node first). The lease is renewed every "items.changes.writer-renew-interval",
+ * on a thread of its own so that long scheduled tasks (which share the scheduler's single thread) can't delay it;
+ * a node that lost it (e.g. paused for longer than "items.changes.writer-lease") stops recording, its writes fail
+ * until it is restarted, rather than reusing numbers another node may have taken since.
+ */
+@Slf4j
+@Component
+public class ItemChangeFeed implements AutoCloseable {
+    private static final String INSERT = "INSERT INTO item_changes "
+            + "(seq, change_type, item_id, status, previous_status, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String CLAIM_WRITER = "UPDATE item_change_feed_writer SET owner = ?, lease_expires_at = ? "
+            + "WHERE id = 1 AND (owner IS NULL OR owner = ? OR lease_expires_at < ?)";
+    private static final String SELECT_BETWEEN = "SELECT seq, change_type, item_id, status, previous_status, changed_at "
+            + "FROM item_changes WHERE seq > ? AND seq < ? ORDER BY seq LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemChangeFeedProperties properties;
+    private final ItemChange[] buffer;
+    private final String nodeId;
+    private volatile boolean writer; // whether this node holds the lease
+    private final ScheduledExecutorService leaseRenewal; // null if the feed is disabled
+    private final Map<Long, Completed> completed = new HashMap<>(); // ended appends waiting for lower numbers
+    private boolean loaded;
+    private long lastAssigned;       // sequence number given to the last appended change
+    private long lastSequence;       // sequence number of the last published change
+    private long firstBuffered;      // sequence number of the oldest change in the buffer
+    private long firstRetained;      // sequence number of the oldest change kept in the outbox
+    private CompletableFuture<Void> nextChange = new CompletableFuture<>(); // completed by the next publication
+
+    public ItemChangeFeed(JdbcTemplate jdbcTemplate, ItemChangeFeedProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.buffer = new ItemChange[properties.getBufferSize()];
+        this.nodeId = properties.getNodeId() != null ? properties.getNodeId() : UUID.randomUUID().toString();
+        if (properties.isEnabled() && !claimWriter()) {
+            throw new IllegalStateException("The item changes are already recorded by node " + findWriter()
+                    + ", only one node can have items.changes.enabled");
+        }
+        this.writer = properties.isEnabled();
+        this.leaseRenewal = writer ? startLeaseRenewal(properties.getWriterRenewInterval()) : null;
+    }
+
+    private ScheduledExecutorService startLeaseRenewal(Duration interval) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("item-change-feed-lease-");
+        threadFactory.setDaemon(true);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        executor.scheduleWithFixedDelay(this::renewWriterLease, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * @return the longest time a long-poll waits for a change
+     */
+    public Duration getMaxWait() {
+        return properties.getMaxWait();
+    }
+
+    /**
+     * @return how long an event stream of the changes stays open
+     */
+    public Duration getStreamTimeout() {
+        return properties.getStreamTimeout();
+    }
+
+    /**
+     * Records a new item
+     * @param item the saved item
+     */
+    public void created(Item item) {
+        append(List.of(new Draft(ItemChangeType.CREATED, item.getId(), item.getStatus(), null)));
+    }
+
+    /**
+     * Records an update of an existing item
+     * @param item the saved item
+     */
+    public void updated(Item item) {
+        append(List.of(new Draft(ItemChangeType.UPDATED, item.getId(), item.getStatus(), null)));
+    }
+
+    /**
+     * Records a deleted item
+     * @param id the item's id
+     */
+    public void deleted(long id) {
+        append(List.of(new Draft(ItemChangeType.DELETED, id, null, null)));
+    }
+
+    /**
+     * Records a status change
+     * @param id the item's id
+     * @param previousStatus the status the item had
+     * @param status the status it has now
+     */
+    public void statusChanged(long id, String previousStatus, String status) {
+        append(List.of(new Draft(ItemChangeType.STATUS_CHANGED, id, status, previousStatus)));
+    }
+
+    /**
+     * Records the status changes of a set-based update, under consecutive sequence numbers
+     * @param previousStatuses the id and previous status of each changed item
+     * @param status the status they have now
+     */
+    public void statusChanged(List<ItemStatusChange> previousStatuses, String status) {
+        append(previousStatuses.stream()
+                .map(change -> new Draft(ItemChangeType.STATUS_CHANGED, change.id(), status, change.previousStatus()))
+                .toList());
+    }
+
+    /**
+     * Records that the items were replaced without going through the feed, e.g. by a snapshot import:
+     * the consumers reaching this change read all the items again
+     */
+    public void reset() {
+        append(List.of(new Draft(ItemChangeType.RESET, 0, null, null)));
+    }
+
+    /**
+     * Records the changes of a batch, under consecutive sequence numbers
+     * @param created the new items
+     * @param updated the updated items
+     * @param deleted the ids of the deleted items
+     */
+    public void recorded(List<Item> created, List<Item> updated, List<Long> deleted) {
+        List<Draft> drafts = new ArrayList<>(created.size() + updated.size() + deleted.size());
+        created.forEach(item -> drafts.add(new Draft(ItemChangeType.CREATED, item.getId(), item.getStatus(), null)));
+        updated.forEach(item -> drafts.add(new Draft(ItemChangeType.UPDATED, item.getId(), item.getStatus(), null)));
+        deleted.forEach(id -> drafts.add(new Draft(ItemChangeType.DELETED, id, null, null)));
+        append(drafts);
+    }
+
+    /**
+     * Reads the changes following an offset
+     * @param after sequence number of the last change already seen, 0 to start from the first change
+     * @param limit maximum number of changes returned
+     * @return the changes after the offset, possibly none,
+     *      empty if some of them are no longer retained (the consumer has to start over from the items)
+     * @throws IllegalArgumentException if the offset is negative or beyond the last change, or the limit isn't positive
+     */
+    public Optional<ItemChangePage> read(long after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long bufferStart;
+        synchronized (this) {
+            load();
+            if (after < 0 || after > lastSequence) {
+                throw new IllegalArgumentException("Offset must be between 0 and " + lastSequence);
+            }
+            if (after + 1 >= firstBuffered) {
+                List<ItemChange> changes = new ArrayList<>((int) Math.min(limit, lastSequence - after));
+                long sequence = after + 1;
+                for (; sequence <= lastSequence && changes.size() < limit; sequence++) {
+                    ItemChange change = buffer[slot(sequence)];
+                    if (change != null) changes.add(change); // null if rolled back
+                }
+                return Optional.of(new ItemChangePage(changes, sequence - 1));
+            }
+            if (after + 1 < firstRetained) return Optional.empty();
+            bufferStart = firstBuffered;
+        }
+
+        // only the changes older than the buffer are read from the outbox, they are all committed by now
+        List<ItemChange> changes = jdbcTemplate.query(SELECT_BETWEEN, ItemChangeFeed::mapRow, after, bufferStart, limit);
+        if (changes.size() < limit) {
+            // all the changes older than the buffer were read, the rest comes after them
+            Optional<ItemChangePage> rest = read(bufferStart - 1, limit - changes.size());
+            if (rest.isPresent()) {
+                changes.addAll(rest.get().changes());
+                return Optional.of(new ItemChangePage(changes, rest.get().next()));
+            }
+        }
+        return Optional.of(new ItemChangePage(changes, changes.isEmpty() ? after : last(changes)));
+    }
+
+    /**
+     * Reads the changes following an offset, waiting for one if there is none yet
+     * @param after sequence number of the last change already seen
+     * @param limit maximum number of changes returned
+     * @param timeout longest time to wait for a change, capped by "items.changes.max-wait"
+     * @return future completed with the same as {@link #read}, with no changes if none came before the timeout
+     * @throws IllegalArgumentException if the offset is negative or beyond the last change, or the limit isn't positive
+     */
+    public CompletableFuture<Optional<ItemChangePage>> poll(long after, int limit, Duration timeout) {
+        Optional<ItemChangePage> page = read(after, limit);
+        if (page.isEmpty() || !page.get().changes().isEmpty() || timeout.isZero() || timeout.isNegative()) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        long waitMillis = Math.min(timeout.toMillis(), properties.getMaxWait().toMillis());
+        CompletableFuture<Void> signal;
+        synchronized (this) {
+            // a change may have been appended since the read
+            signal = lastSequence > after ? CompletableFuture.completedFuture(null) : nextChange.copy();
+        }
+        // the read doesn't run on the thread that appended the change
+        return signal.completeOnTimeout(null, waitMillis, TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ignored -> read(after, limit));
+    }
+
+    /**
+     * @return the sequence number of the last published change, 0 if there is none
+     */
+    public synchronized long getLastSequence() {
+        load();
+        return lastSequence;
+    }
+
+    /**
+     * Renews the lease of this node, the feed stops recording changes if another node took it
+     */
+    public void renewWriterLease() {
+        if (!writer) return;
+        try {
+            if (!claimWriter()) {
+                writer = false;
+                log.error("The item change feed lease was taken by node {}, changes are no longer recorded", findWriter());
+            }
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not renew the item change feed lease", e);
+        }
+    }
+
+    /**
+     * Takes or extends the lease of the node recording the changes
+     * @return false if another node holds it
+     */
+    private boolean claimWriter() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        return jdbcTemplate.update(CLAIM_WRITER, nodeId, now.plus(properties.getWriterLease()), nodeId, now) == 1;
+    }
+
+    private String findWriter() {
+        return jdbcTemplate.queryForObject("SELECT owner FROM item_change_feed_writer WHERE id = 1", String.class);
+    }
+
+    /**
+     * Releases the lease, so that another node can record the changes right away
+     */
+    @Override
+    public void close() {
+        if (leaseRenewal != null) leaseRenewal.shutdownNow();
+        if (!writer) return;
+        writer = false;
+        jdbcTemplate.update("UPDATE item_change_feed_writer SET owner = NULL, lease_expires_at = NULL "
+                + "WHERE id = 1 AND owner = ?", nodeId);
+    }
+
+    /**
+     * Removes the changes older than the retention from the outbox
+     */
+    @Scheduled(fixedDelayString = "${items.changes.prune-interval:PT1M}")
+    public void pruneExpired() {
+        if (!isEnabled()) return;
+        try {
+            prune(Instant.now().minus(properties.getRetention()));
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not remove the expired item changes", e);
+        }
+    }
+
+    /**
+     * Removes the changes recorded before the given time from the outbox,
+     * consumers whose offset is older than the remaining changes can no longer catch up
+     * @param before the time of the oldest change kept
+     * @return the number of changes removed
+     */
+    public int prune(Instant before) {
+        long last = getLastSequence();
+        int removed = jdbcTemplate.update("DELETE FROM item_changes WHERE changed_at < ?",
+                OffsetDateTime.ofInstant(before, ZoneOffset.UTC));
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(seq) FROM item_changes", Long.class);
+        synchronized (this) {
+            firstRetained = Math.max(firstRetained, oldest == null ? last + 1 : oldest);
+        }
+        if (removed > 0) log.debug("Removed {} expired item changes", removed);
+        return removed;
+    }
+
+    /**
+     * Numbers the changes and writes them to the outbox, in the current transaction if there is one.
+     * Only the numbering holds the lock; the changes are published once the transaction commits
+     * (right after the insert without a transaction), and skipped if it rolls back
+     * @throws IllegalStateException if this node lost the lease, so that the write it records fails
+     */
+    private void append(List<Draft> drafts) {
+        if (!isEnabled() || drafts.isEmpty()) return;
+        if (!writer) {
+            throw new IllegalStateException("This node no longer holds the item change feed lease");
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        long first;
+        synchronized (this) {
+            load();
+            first = lastAssigned + 1;
+            lastAssigned += drafts.size();
+        }
+
+        List<ItemChange> changes = new ArrayList<>(drafts.size());
+        long sequence = first;
+        for (Draft draft : drafts) {
+            changes.add(new ItemChange(sequence++, draft.type(), draft.itemId(), draft.status(),
+                    draft.previousStatus(), now.toInstant()));
+        }
+
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    complete(first, changes, status == STATUS_COMMITTED);
+                }
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (statement, change) -> {
+                statement.setLong(1, change.sequence());
+                statement.setString(2, change.type().name());
+                statement.setLong(3, change.itemId());
+                statement.setString(4, change.status());
+                statement.setString(5, change.previousStatus());
+                statement.setObject(6, now);
+            });
+        }
+        catch (RuntimeException e) {
+            if (!inTransaction) complete(first, changes, false);
+            throw e; // in a transaction, it rolls back
+        }
+        if (!inTransaction) complete(first, changes, true);
+    }
+
+    /**
+     * Publishes the changes of an ended append to the buffer, once all the lower numbers are published,
+     * and wakes up the waiting consumers
+     * @param committed false if the changes were rolled back, their numbers are skipped
+     */
+    private void complete(long first, List<ItemChange> changes, boolean committed) {
+        CompletableFuture<Void> signal;
+        synchronized (this) {
+            completed.put(first, new Completed(changes, committed));
+            long published = lastSequence;
+            Completed next;
+            while ((next = completed.remove(lastSequence + 1)) != null) {
+                for (ItemChange change : next.changes()) {
+                    buffer[slot(change.sequence())] = next.committed() ? change : null;
+                }
+                lastSequence += next.changes().size();
+            }
+            if (lastSequence == published) return;
+
+            firstBuffered = Math.max(firstBuffered, lastSequence - buffer.length + 1);
+            signal = nextChange;
+            nextChange = new CompletableFuture<>();
+        }
+        signal.complete(null);
+    }
+
+    /**
+     * Reads the sequence numbers from the outbox on the first use, the buffer starts empty
+     */
+    private void load() {
+        if (loaded) return;
+        jdbcTemplate.query("SELECT MIN(seq), MAX(seq) FROM item_changes", resultSet -> {
+            long oldest = resultSet.getLong(1);
+            firstRetained = resultSet.wasNull() ? 1 : oldest;
+            lastSequence = resultSet.getLong(2); // 0 if the outbox is empty
+        });
+        lastAssigned = lastSequence;
+        firstBuffered = lastSequence + 1;
+        loaded = true;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+
+    private static long last(List<ItemChange> changes) {
+        return changes.get(changes.size() - 1).sequence();
+    }
+
+    private static ItemChange mapRow(ResultSet resultSet, int row) throws SQLException {
+        return new ItemChange(resultSet.getLong(1), ItemChangeType.valueOf(resultSet.getString(2)),
+                resultSet.getLong(3), resultSet.getString(4), resultSet.getString(5),
+                resultSet.getObject(6, OffsetDateTime.class).toInstant());
+    }
+
+    /**
+     * A change not numbered yet
+     */
+    private record Draft(ItemChangeType type, long itemId, String status, String previousStatus) {
+    }
+
+    /**
+     * The numbered changes of an append whose transaction ended
+     */
+    private record Completed(List<ItemChange> changes, boolean committed) {
+    }
+}
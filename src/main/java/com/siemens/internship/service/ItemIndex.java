@@ -0,0 +1,337 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Optional in-memory secondary index of the items ("items.index.enabled"):
+ * the ids of each status in a compressed bitmap and the id of each email (emails are nearly unique,
+ * the few shared ones keep a small sorted array), so that these lookups are answered without querying the database.
+ * Like the status counters, the index is kept up to date by the services with the changes whose effect is known,
+ * other changes mark it as stale. A stale index doesn't answer (callers fall back to the database)
+ * until it is rebuilt from the table, which is checked every "items.index.refresh-interval"
+ * and done at least every "items.index.rebuild-interval" to pick up changes made outside this node.
+ * Changes reported while a rebuild reads the table are applied to the rebuilt index as well.
+ */
+@Slf4j
+@Component
+public class ItemIndex {
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    private static final String REBUILD_SELECT =
+            "SELECT id, status, email FROM items WHERE id > ? ORDER BY id LIMIT " + REBUILD_PAGE_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Duration rebuildInterval;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Entries entries = new Entries();
+    private List<Consumer<Entries>> pending; // changes reported during a rebuild, null if none is running
+    private boolean staleDuringRebuild;
+    private volatile boolean stale = true;
+    private volatile Instant builtAt;
+
+    public ItemIndex(JdbcTemplate jdbcTemplate,
+                     @Value("${items.index.enabled:false}") boolean enabled,
+                     @Value("${items.index.rebuild-interval:PT5M}") Duration rebuildInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param status the status
+     * @param after only ids greater than this one are returned, null for the first page
+     * @param limit maximum number of ids returned
+     * @return the ids of the items with the status, ascending,
+     *      empty if the index can't answer (disabled, not built yet or stale)
+     */
+    public Optional<long[]> findIdsByStatus(String status, Long after, int limit) {
+        return read(index -> {
+            StatusIds ids = index.idsByStatus.get(status);
+            if (ids == null) return new long[0];
+
+            // the bitmap orders the ids as unsigned numbers, which is the same order for the positive ids
+            PeekableLongIterator iterator = ids.ids().getLongIteratorFrom(after == null || after < 0 ? 0 : after + 1);
+            long[] page = new long[(int) Math.min(limit, ids.ids().getLongCardinality())];
+            int count = 0;
+            while (count < page.length && iterator.hasNext()) {
+                page[count++] = iterator.next();
+            }
+            return count == page.length ? page : Arrays.copyOf(page, count);
+        });
+    }
+
+    /**
+     * @param email the email, matched exactly
+     * @param after only ids greater than this one are returned, null for the first page
+     * @param limit maximum number of ids returned
+     * @return the ids of the items with the email, ascending,
+     *      empty if the index can't answer (disabled, not built yet or stale)
+     */
+    public Optional<long[]> findIdsByEmail(String email, Long after, int limit) {
+        return read(index -> {
+            long[] ids = index.idsByEmail.get(email);
+            if (ids == null) return new long[0];
+
+            int from = after == null ? 0 : Arrays.binarySearch(ids, after);
+            if (from < 0) from = -from - 1; // the insertion point of a missing cursor
+            else if (after != null) from++;
+            return Arrays.copyOfRange(ids, from, Math.max(from, Math.min(ids.length, from + limit)));
+        });
+    }
+
+    /**
+     * Indexes a saved item with its current status and email, replacing what was indexed for its id
+     * @param item the saved item, with its id
+     */
+    public void put(Item item) {
+        if (item.getId() == null) return;
+        long id = item.getId();
+        String status = item.getStatus();
+        String email = item.getEmail();
+        write(index -> index.put(id, status, email));
+    }
+
+    /**
+     * Changes the indexed status of an item
+     * @param id the item's id
+     * @param status the status it has now
+     */
+    public void statusChanged(long id, String status) {
+        write(index -> index.setStatus(id, status));
+    }
+
+    /**
+     * Removes a deleted item
+     * @param id the item's id
+     */
+    public void remove(long id) {
+        write(index -> index.remove(id));
+    }
+
+    /**
+     * Reports changes whose effect on the index isn't known, it isn't used until it is rebuilt
+     */
+    public void markStale() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            stale = true;
+            if (pending != null) staleDuringRebuild = true;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the index with the content of the items table, read by pages of ids
+     */
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+            staleDuringRebuild = false;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+        Entries rebuilt = new Entries();
+        try {
+            long[] afterId = {Long.MIN_VALUE};
+            int[] rows = new int[1];
+            do {
+                rows[0] = 0;
+                jdbcTemplate.query(REBUILD_SELECT, resultSet -> {
+                    afterId[0] = resultSet.getLong(1);
+                    rebuilt.put(afterId[0], resultSet.getString(2), resultSet.getString(3));
+                    rows[0]++;
+                }, afterId[0]);
+            } while (rows[0] == REBUILD_PAGE_SIZE);
+        }
+        catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(rebuilt));
+            pending = null;
+            entries = rebuilt;
+            stale = staleDuringRebuild;
+            builtAt = Instant.now();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Rebuilt the item index with {} items", rebuilt.size);
+    }
+
+    /**
+     * Rebuilds the index if it is stale or wasn't rebuilt for a while
+     */
+    @Scheduled(fixedDelayString = "${items.index.refresh-interval:PT5S}")
+    public void refresh() {
+        if (!enabled) return;
+        Instant last = builtAt;
+        if (stale || last == null || last.plus(rebuildInterval).isBefore(Instant.now())) {
+            try {
+                rebuild();
+            }
+            catch (RuntimeException e) {
+                log.warn("Could not rebuild the item index", e);
+            }
+        }
+    }
+
+    private <T> Optional<T> read(Function<Entries, T> lookup) {
+        if (!enabled || stale) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            return stale ? Optional.empty() : Optional.of(lookup.apply(entries));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Entries> change) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            change.accept(entries);
+            if (pending != null) pending.add(change);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The ids of a status, with the status instance referenced by the pages of {@link Entries},
+     * so that all the ids with a status share one copy of it
+     */
+    private record StatusIds(String status, Roaring64Bitmap ids) {
+    }
+
+    /**
+     * The indexed items: ids by status and by email, and the status and email of each id
+     * (kept in arrays covering pages of consecutive ids, which is compact for ids coming from a sequence)
+     */
+    private static final class Entries {
+        private static final int PAGE_BITS = 12;
+        private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+        private final Map<String, StatusIds> idsByStatus = new HashMap<>();
+        private final Map<String, long[]> idsByEmail = new HashMap<>(); // sorted, nearly always a single id
+        private final Map<Long, String[]> pages = new HashMap<>(); // status at 2 * offset, email at 2 * offset + 1
+        private long size;
+
+        void put(long id, String status, String email) {
+            String[] page = pages.computeIfAbsent(id >> PAGE_BITS, key -> new String[2 << PAGE_BITS]);
+            int offset = 2 * (int) (id & PAGE_MASK);
+            if (page[offset] == null && page[offset + 1] == null) size++;
+            replaceStatus(id, page, offset, status);
+            replaceEmail(id, page, offset + 1, email);
+        }
+
+        void setStatus(long id, String status) {
+            String[] page = pages.get(id >> PAGE_BITS);
+            int offset = 2 * (int) (id & PAGE_MASK);
+            if (page == null || (page[offset] == null && page[offset + 1] == null)) return; // not indexed
+            replaceStatus(id, page, offset, status);
+        }
+
+        void remove(long id) {
+            String[] page = pages.get(id >> PAGE_BITS);
+            if (page == null) return;
+            int offset = 2 * (int) (id & PAGE_MASK);
+            if (page[offset] == null && page[offset + 1] == null) return;
+            replaceStatus(id, page, offset, null);
+            replaceEmail(id, page, offset + 1, null);
+            size--;
+        }
+
+        /**
+         * Moves an id from the bitmap of the status at page[offset] to the bitmap of the new status,
+         * storing the status instance of the bitmap (not the given one) in the page
+         */
+        private void replaceStatus(long id, String[] page, int offset, String status) {
+            String previous = page[offset];
+            if (previous != null && previous.equals(status)) return;
+            if (previous != null) {
+                StatusIds ids = idsByStatus.get(previous);
+                ids.ids().removeLong(id);
+                if (ids.ids().isEmpty()) idsByStatus.remove(previous);
+            }
+            page[offset] = status == null ? null
+                    : idsByStatus.computeIfAbsent(status, key -> new StatusIds(key, new Roaring64Bitmap())).status();
+            if (status != null) idsByStatus.get(status).ids().addLong(id);
+        }
+
+        /**
+         * Moves an id from the ids of the email at page[offset] to the ids of the new email
+         */
+        private void replaceEmail(long id, String[] page, int offset, String email) {
+            String previous = page[offset];
+            if (previous != null && previous.equals(email)) return;
+            if (previous != null) {
+                long[] ids = idsByEmail.get(previous);
+                if (ids.length == 1) {
+                    idsByEmail.remove(previous);
+                }
+                else {
+                    int position = Arrays.binarySearch(ids, id);
+                    long[] remaining = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, remaining, 0, position);
+                    System.arraycopy(ids, position + 1, remaining, position, remaining.length - position);
+                    idsByEmail.put(previous, remaining);
+                }
+            }
+            if (email != null) {
+                idsByEmail.merge(email, new long[]{id}, (ids, added) -> {
+                    int position = Arrays.binarySearch(ids, id);
+                    if (position >= 0) return ids;
+                    position = -position - 1;
+                    long[] grown = new long[ids.length + 1];
+                    System.arraycopy(ids, 0, grown, 0, position);
+                    grown[position] = id;
+                    System.arraycopy(ids, position, grown, position + 1, ids.length - position);
+                    return grown;
+                });
+            }
+            page[offset] = email;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.siemens.internship.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the per-item processing:
+ * "items.processing.item" times every processed item, tagged with its outcome,
+ * "items.processing.errors" counts the exceptions caught while processing, tagged with their type.
+ */
+@Component
+public class ItemProcessingMetrics {
+
+    /**
+     * Possible results of processing one item
+     */
+    public enum Outcome {
+        SUCCESS, NOT_FOUND, FAILURE;
+
+        private String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public ItemProcessingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return a sample to be stopped with {@link #recordItem} once the item is processed
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordItem(Timer.Sample sample, Outcome outcome) {
+        sample.stop(Timer.builder("items.processing.item")
+                .description("Time to process a single item")
+                .tag("outcome", outcome.tag())
+                .register(meterRegistry));
+    }
+
+    public void recordError(Throwable e) {
+        Counter.builder("items.processing.errors")
+                .description("Exceptions caught while processing items")
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,245 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemProcessingProperties;
+import com.siemens.internship.model.Item;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs items through the {@link ItemProcessor} stages, in order.
+ * Each stage has its own queue and its own threads ("items.processing.stages.&lt;name&gt;.parallelism"),
+ * which take the items waiting for the stage in batches of up to "batch-size" items
+ * and pass them on to the next stage once processed.
+ * Between stages, a full queue blocks the stage handing items on, so a slow stage slows down the ones before it
+ * instead of accumulating items. Submitting never blocks, since the submitter holds a processing permit:
+ * the items that don't fit in the first stage's queue wait in memory until it has room.
+ * Publishes "items.processing.stage" (time per batch), "items.processing.stage.batch.size"
+ * and "items.processing.stage.queued", tagged with the stage name.
+ */
+@Component
+public class ItemProcessingPipeline implements AutoCloseable {
+
+    private record PendingItem(Item item, CompletableFuture<Item> result) {
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    public ItemProcessingPipeline(List<ItemProcessor> processors, ItemProcessingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        if (processors.isEmpty()) {
+            throw new IllegalStateException("At least one ItemProcessor is required");
+        }
+
+        // built from the last stage, so that each stage knows the next one
+        Stage next = null;
+        for (int i = processors.size() - 1; i >= 0; i--) {
+            ItemProcessor processor = processors.get(i);
+            next = new Stage(processor, properties.getStage(processor.name()), next, meterRegistry);
+            stages.add(0, next);
+        }
+        stages.forEach(Stage::start);
+    }
+
+    /**
+     * @return names of the stages, in the order they run
+     */
+    public List<String> getStageNames() {
+        return stages.stream().map(stage -> stage.processor.name()).toList();
+    }
+
+    /**
+     * Hands an item to the first stage without waiting, it is held until the stage has room if its queue is full
+     * @param item the item to be processed, modified in place
+     * @return future completed with the item once it went through all the stages,
+     *      or with the exception of the stage it failed in
+     */
+    public CompletableFuture<Item> submit(Item item) {
+        PendingItem pending = new PendingItem(item, new CompletableFuture<>());
+        stages.get(0).offer(pending);
+        return pending.result();
+    }
+
+    /**
+     * Stops the stages one after the other, each one finishing its queued items first
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (Stage stage : stages) {
+            stage.close();
+        }
+    }
+
+    private static final class Stage {
+        private final ItemProcessor processor;
+        private final ItemProcessingProperties.Stage settings;
+        private final Stage next;
+        private final BlockingQueue<PendingItem> queue;
+        private final Deque<PendingItem> waiting = new ConcurrentLinkedDeque<>(); // submitted while the queue was full
+        private final List<Thread> workers = new ArrayList<>();
+        private final Timer timer;
+        private final DistributionSummary batchSizes;
+        private volatile boolean running;
+
+        private Stage(ItemProcessor processor, ItemProcessingProperties.Stage settings, Stage next,
+                      MeterRegistry meterRegistry) {
+            if (settings.getParallelism() <= 0 || settings.getBatchSize() <= 0) {
+                throw new IllegalArgumentException("Parallelism and batch size of stage " + processor.name()
+                        + " must be positive");
+            }
+            this.processor = processor;
+            this.settings = settings;
+            this.next = next;
+            this.queue = new LinkedBlockingQueue<>(settings.getQueueCapacity());
+
+            this.timer = Timer.builder("items.processing.stage")
+                    .description("Time to process a batch of items in a stage")
+                    .tag("stage", processor.name())
+                    .register(meterRegistry);
+            this.batchSizes = DistributionSummary.builder("items.processing.stage.batch.size")
+                    .description("Number of items per batch of a stage")
+                    .tag("stage", processor.name())
+                    .register(meterRegistry);
+            Gauge.builder("items.processing.stage.queued", this, stage -> stage.queue.size() + stage.waiting.size())
+                    .description("Items waiting for a stage")
+                    .tag("stage", processor.name())
+                    .register(meterRegistry);
+
+            for (int i = 0; i < settings.getParallelism(); i++) {
+                Thread worker = new Thread(this::run, "item-stage-" + processor.name() + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+            }
+        }
+
+        private void start() {
+            running = true;
+            workers.forEach(Thread::start);
+        }
+
+        /**
+         * Adds an item without blocking, behind the items already waiting for room in the queue
+         */
+        private void offer(PendingItem pending) {
+            if (!running) {
+                pending.result().completeExceptionally(
+                        new RejectedExecutionException("Processing stage " + processor.name() + " is closed"));
+                return;
+            }
+            waiting.add(pending);
+            moveWaiting();
+        }
+
+        /**
+         * Moves the waiting items to the queue, as far as it has room
+         */
+        private void moveWaiting() {
+            PendingItem pending;
+            while ((pending = waiting.poll()) != null) {
+                if (!queue.offer(pending)) {
+                    waiting.addFirst(pending);
+                    return;
+                }
+            }
+        }
+
+        private void enqueue(PendingItem pending) {
+            try {
+                while (running) {
+                    if (queue.offer(pending, 100, TimeUnit.MILLISECONDS)) return;
+                }
+                pending.result().completeExceptionally(
+                        new RejectedExecutionException("Processing stage " + processor.name() + " is closed"));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.result().completeExceptionally(e);
+            }
+        }
+
+        private void run() {
+            List<PendingItem> batch = new ArrayList<>(settings.getBatchSize());
+
+            // keeps processing after close() until the queue is drained
+            while (running || !queue.isEmpty() || !waiting.isEmpty()) {
+                moveWaiting();
+                try {
+                    PendingItem first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    // no waiting for a full batch: batches only grow when items arrive faster than they're processed
+                    batch.add(first);
+                    queue.drainTo(batch, settings.getBatchSize() - 1);
+                    moveWaiting(); // the batch made room
+                }
+                catch (InterruptedException e) {
+                    running = false;
+                }
+
+                if (!batch.isEmpty()) {
+                    process(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        private void process(List<PendingItem> batch) {
+            List<Item> items = batch.stream().map(PendingItem::item).toList();
+            Timer.Sample sample = Timer.start();
+            try {
+                processor.process(items);
+                sample.stop(timer);
+                batchSizes.record(batch.size());
+                batch.forEach(this::forward);
+            }
+            catch (Exception batchFailure) {
+                sample.stop(timer);
+                if (batch.size() == 1) {
+                    batch.get(0).result().completeExceptionally(batchFailure);
+                    return;
+                }
+                // one failing item must not fail the whole batch, so each item is retried on its own
+                for (PendingItem pending : batch) {
+                    process(List.of(pending));
+                }
+            }
+        }
+
+        private void forward(PendingItem pending) {
+            if (next == null) {
+                pending.result().complete(pending.item());
+            }
+            else {
+                next.enqueue(pending);
+            }
+        }
+
+        private void close() throws InterruptedException {
+            if (!running) return;
+
+            running = false;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            // items queued while the workers were exiting
+            PendingItem pending;
+            while ((pending = queue.poll()) != null || (pending = waiting.poll()) != null) {
+                pending.result().completeExceptionally(
+                        new RejectedExecutionException("Processing stage " + processor.name() + " is closed"));
+            }
+        }
+    }
+}
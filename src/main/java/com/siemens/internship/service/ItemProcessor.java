@@ -0,0 +1,29 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+
+import java.util.List;
+
+/**
+ * A stage of the item processing pipeline.
+ * Every ItemProcessor bean becomes a stage, the stages run in the beans' {@link org.springframework.core.annotation.Order}
+ * and each one is tuned with the "items.processing.stages.&lt;name&gt;.*" properties
+ * (parallelism and batch size), so CPU-bound and IO-bound steps can be configured independently.
+ * Implementations must be thread-safe when their parallelism is above 1.
+ */
+public interface ItemProcessor {
+
+    /**
+     * @return name of the stage, used in its properties and in the "items.processing.stage" metrics
+     */
+    String name();
+
+    /**
+     * Processes a batch of items, modifying them in place.
+     * If the batch fails, its items are retried one by one, so that only the failing items fail
+     * (processing an item twice must therefore give the same result)
+     * @param items the items of the batch, at most the stage's batch size
+     * @throws Exception if the batch couldn't be processed
+     */
+    void process(List<Item> items) throws Exception;
+}
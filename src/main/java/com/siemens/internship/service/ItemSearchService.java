@@ -0,0 +1,69 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemSearchCriteria;
+import com.siemens.internship.model.ItemSearchCursor;
+import com.siemens.internship.model.ItemSearchPage;
+import com.siemens.internship.model.ItemSort;
+import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for searching items with filters, keyset paging and field selection.
+ * Only the selected columns are read from the database, so no entity is loaded.
+ */
+@Service
+@Timed(value = "items.search", histogram = true, description = "Time spent searching items")
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+public class ItemSearchService {
+
+    private final ItemRepository itemRepository;
+
+    /**
+     * Searches a page of items
+     * @param criteria the filters
+     * @param fields comma separated fields to return (e.g. "id,status"), null for all fields
+     * @param sort "id" or "name", prefixed with "-" for the descending order
+     * @param after cursor returned by the previous page, null for the first page
+     * @param limit maximum number of items in the page
+     * @return the selected fields of the matching items and the cursor of the next page
+     * @throws IllegalArgumentException if a field, the sort or the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public ItemSearchPage search(ItemSearchCriteria criteria, String fields, String sort, String after, int limit) {
+        List<ItemField> selected = ItemField.parseList(fields);
+        ItemSort order = ItemSort.parse(sort);
+        ItemSearchCursor cursor = after == null ? null : ItemSearchCursor.decode(after);
+        if (cursor != null && order.isByName() != (cursor.name() != null)) {
+            throw new IllegalArgumentException("The cursor doesn't match the sort");
+        }
+
+        List<Tuple> rows = itemRepository.search(criteria, selected, order, cursor, limit);
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            selected.forEach(field -> item.put(field.getAttribute(), row.get(field.getAttribute())));
+            items.add(item);
+        }
+
+        // a partial page means there is nothing left after it
+        String next = null;
+        if (rows.size() == limit) {
+            Tuple last = rows.get(rows.size() - 1);
+            next = new ItemSearchCursor(last.get("id", Long.class),
+                    order.isByName() ? last.get("name", String.class) : null).encode();
+        }
+        return new ItemSearchPage(items, next);
+    }
+}
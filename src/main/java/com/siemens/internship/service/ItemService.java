@@ -1,26 +1,75 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.config.ItemProcessingExecutor;
+import com.siemens.internship.config.ItemProcessingProperties;
+import com.siemens.internship.model.BulkProcessingResult;
+import com.siemens.internship.model.CacheStatistics;
+import com.siemens.internship.model.ItemCollectionVersion;
+import com.siemens.internship.model.DeadLetter;
+import com.siemens.internship.model.DeadLetterReplayResult;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemIdPage;
+import com.siemens.internship.model.ItemPage;
+import com.siemens.internship.model.ItemStatistics;
+import com.siemens.internship.model.ItemStatusChange;
+import com.siemens.internship.model.ProcessingJobStatus;
 import com.siemens.internship.repository.ItemRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing Item entities and processing them asynchronously.
  * Provides basic CRUD operations and a method to process all items in parallel.
  */
+@Slf4j
 @Service
+@Timed(value = "items.service", histogram = true, description = "Time spent in ItemService methods")
 @RequiredArgsConstructor(onConstructor_ = {@Autowired})
 public class ItemService {
+    static final String PROCESSED_STATUS = "PROCESSED";
+    private static final String ALL_ITEMS_RUN = "all-items";
+    private static final String ALL_ITEMS_JOB = "all-items-job";
+    private static final String UNPROCESSED_ITEMS_JOB = "unprocessed-items-job";
+    private static final int ID_PAGE_SIZE = 1000;
+
     private final ItemRepository itemRepository;
-    private final static ExecutorService executor = Executors.newFixedThreadPool(10);
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ProcessingJobRegistry processingJobRegistry;
+    private final ItemWriteBehindBuffer writeBehindBuffer;
+    private final ItemCache itemCache;
+    private final ItemProcessingExecutor executor;
+    private final ItemProcessingMetrics processingMetrics;
+    private final ItemProcessingPipeline processingPipeline;
+    private final ItemProcessingProperties processingProperties;
+    private final ProcessingRetryPolicy retryPolicy;
+    private final DeadLetterService deadLetterService;
+    private final ItemStatusCounters statusCounters;
+    private final ItemIndex itemIndex;
+    private final ItemChangeFeed changeFeed;
+    private final ProcessingAdmission processingAdmission;
 
 
     /**
@@ -31,21 +80,152 @@ public class ItemService {
     }
 
     /**
-     * Searches for an item by its id
+     * Retrieves a page of items using keyset pagination on the id
+     * @param after cursor returned by the previous page, null for the first page
+     * @param limit maximum number of items in the page
+     * @return the page of items and the cursor of the next page
+     */
+    public ItemPage findPage(Long after, int limit) {
+        List<Item> items = itemRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? Long.MIN_VALUE : after, Limit.of(limit));
+
+        // a partial page means there is nothing left after it
+        Long next = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return new ItemPage(items, next);
+    }
+
+    /**
+     * Passes every item, ordered by id, to the given action without loading the whole table.
+     * Each item is detached once handled, so memory use doesn't grow with the number of rows
+     * @param action action to be performed for each item
+     */
+    @Transactional(readOnly = true)
+    public void forEachItem(Consumer<Item> action) {
+        try (Stream<Item> items = itemRepository.streamAll()) {
+            items.forEach(item -> {
+                action.accept(item);
+                entityManager.detach(item);
+            });
+        }
+    }
+
+    /**
+     * Searches for an item by its id, going to the database only if the item isn't cached
      * @param id the item's id
      * @return Optional of item, if found, empty Optional otherwise
      */
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        return itemCache.get(id, itemRepository::findById);
     }
 
     /**
-     * Saves a new item or updates an existing one
+     * Retrieves a page of the ids of the items with a status,
+     * from the in-memory index if it is enabled and up to date
+     * @param status the status
+     * @param after cursor returned by the previous page, null for the first page
+     * @param limit maximum number of ids in the page
+     * @return the ids, ascending, and the cursor of the next page
+     */
+    public ItemIdPage findIdsByStatus(String status, Long after, int limit) {
+        return idPage(itemIndex.findIdsByStatus(status, after, limit)
+                .orElseGet(() -> toArray(itemRepository.findIdsByStatus(status, afterId(after), Limit.of(limit)))),
+                limit);
+    }
+
+    /**
+     * Retrieves a page of the ids of the items with an email,
+     * from the in-memory index if it is enabled and up to date
+     * @param email the email, matched exactly
+     * @param after cursor returned by the previous page, null for the first page
+     * @param limit maximum number of ids in the page
+     * @return the ids, ascending, and the cursor of the next page
+     */
+    public ItemIdPage findIdsByEmail(String email, Long after, int limit) {
+        return idPage(itemIndex.findIdsByEmail(email, after, limit)
+                .orElseGet(() -> toArray(itemRepository.findIdsByEmail(email, afterId(after), Limit.of(limit)))),
+                limit);
+    }
+
+    private static Long afterId(Long after) {
+        return after == null ? Long.MIN_VALUE : after;
+    }
+
+    private static ItemIdPage idPage(long[] ids, int limit) {
+        // a partial page means there is nothing left after it
+        return new ItemIdPage(ids, ids.length < limit ? null : ids[ids.length - 1]);
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Saves a new item or updates an existing one.
+     * With write-behind enabled, the save is flushed together with other callers' saves
      * @param item item to be saved/updated
      * @return the saved/updated item
      */
     public Item save(Item item) {
-        return itemRepository.save(item);
+        boolean created = item.getId() == null;
+        item.setNeedsProcessing(true); // a written item is processed again by incremental runs
+        if (writeBehindBuffer.isEnabled()) {
+            Item saved = saveWriteBehind(item);
+            recordSaved(saved, created); // the batch is already committed
+            return applySaved(saved, created, null);
+        }
+        // the change is recorded in the outbox within the save's transaction
+        String[] previousStatus = new String[1];
+        Item saved = transactionTemplate.execute(status -> {
+            if (!created) {
+                // merging loads the stored item anyway, so reading it first costs no extra query
+                previousStatus[0] = itemRepository.findById(item.getId()).map(Item::getStatus).orElse(null);
+            }
+            Item entity = itemRepository.save(item);
+            recordSaved(entity, created);
+            return entity;
+        });
+        return applySaved(saved, created, previousStatus[0]);
+    }
+
+    private Item applySaved(Item saved, boolean created, String previousStatus) {
+        itemCache.put(saved);
+        countSaved(saved, created, previousStatus);
+        itemIndex.put(saved);
+        return saved;
+    }
+
+    /**
+     * Saves a new item or updates an existing one without waiting for it to be persisted
+     * (the save is done right away when write-behind is disabled)
+     * @param item item to be saved/updated
+     * @return future completed with the saved/updated item, including its generated id
+     */
+    public CompletableFuture<Item> saveAsync(Item item) {
+        if (!writeBehindBuffer.isEnabled()) {
+            return CompletableFuture.completedFuture(save(item));
+        }
+        boolean created = item.getId() == null;
+        item.setNeedsProcessing(true);
+        return writeBehindBuffer.submit(item).thenApply(saved -> {
+            recordSaved(saved, created); // the batch is already committed
+            return applySaved(saved, created, null);
+        });
+    }
+
+    /**
+     * Updates the status counters after a save
+     * @param previousStatus the status the updated item had, null if it isn't known
+     *      (saved by the write-behind batches, which merge the items without reading them)
+     */
+    private void countSaved(Item saved, boolean created, String previousStatus) {
+        if (created) statusCounters.created(saved.getStatus());
+        else if (previousStatus != null) statusCounters.statusChanged(previousStatus, saved.getStatus());
+        else statusCounters.markStale();
+    }
+
+    private void recordSaved(Item saved, boolean created) {
+        if (created) changeFeed.created(saved);
+        else changeFeed.updated(saved);
     }
 
     /**
@@ -53,47 +233,554 @@ public class ItemService {
      * @param id the id of the item to be deleted
      */
     public void deleteById(Long id) {
-        itemRepository.deleteById(id);
+        Optional<String> deleted = transactionTemplate.execute(transaction -> {
+            Optional<String> status = itemRepository.removeById(id);
+            if (status.isPresent()) changeFeed.deleted(id);
+            return status;
+        });
+        itemCache.invalidate(id);
+        if (deleted != null && deleted.isPresent()) {
+            statusCounters.deleted(deleted.get());
+            itemIndex.remove(id);
+        }
     }
 
     /**
-     * Asynchronously processes all items in the database by updating their status to "PROCESSED"
-     * @return only the items that were successfully updated and saved
+     * Updates an existing item with a single statement, without reading it first.
+     * If the item has a version, the update only succeeds if the stored item still has that version.
+     * The statement also returns the previous status, so the status counters follow the change;
+     * they, the cache and the index are updated once the transaction commits
+     * @param id the id of the item to be updated
+     * @param item the new values of the item
+     * @return Optional of the updated item, empty Optional if the item doesn't exist
+     * @throws OptimisticLockingFailureException if the item was modified since the given version
+     */
+    @Transactional
+    public Optional<Item> update(Long id, Item item) {
+        Optional<String> previousStatus = itemRepository.update(id, item);
+        if (previousStatus.isEmpty()) {
+            // only a failed update needs to know why it failed
+            if (item.getVersion() != null && itemRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Item " + id + " was modified by another request");
+            }
+            return Optional.empty();
+        }
+
+        item.setId(id);
+        changeFeed.updated(item); // recorded in the outbox within the update's transaction
+        if (item.getVersion() != null) item.setVersion(item.getVersion() + 1);
+        AfterCommit.run(() -> {
+            statusCounters.statusChanged(previousStatus.get(), item.getStatus());
+            itemIndex.put(item);
+            if (item.getVersion() != null) itemCache.put(item);
+            else itemCache.invalidate(id); // the new version isn't known without reading it
+        });
+        return Optional.of(item);
+    }
+
+    /**
+     * Deletes an item with a single statement, without reading it first.
+     * The statement also returns the deleted status, so the status counters follow the change;
+     * they, the cache and the index are updated once the transaction commits
+     * @param id the id of the item to be deleted
+     * @return true if the item was deleted, false if it doesn't exist
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        Optional<String> status = itemRepository.removeById(id);
+        if (status.isPresent()) {
+            changeFeed.deleted(id); // recorded in the outbox within the delete's transaction
+            AfterCommit.run(() -> {
+                itemCache.invalidate(id);
+                statusCounters.deleted(status.get());
+                itemIndex.remove(id);
+            });
+        }
+        return status.isPresent();
+    }
+
+    /**
+     * @return the current version of the item collection, aggregated by the database without returning the items
+     *      (so it also follows the writes of other nodes)
+     */
+    public ItemCollectionVersion getCollectionVersion() {
+        return itemRepository.findCollectionVersion();
+    }
+
+    /**
+     * @return the number of items, in total and per status, read from in-memory counters
+     */
+    public ItemStatistics getStatistics() {
+        return statusCounters.snapshot();
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the item cache
+     */
+    public CacheStatistics getCacheStatistics() {
+        return itemCache.getStatistics();
+    }
+
+    private Item saveWriteBehind(Item item) {
+        try {
+            return writeBehindBuffer.submit(item).join();
+        }
+        catch (CompletionException e) {
+            // rethrow the original failure, as a direct save would
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Processes all items in the database, running them through the processing stages
+     * (which end by updating their status to "PROCESSED").
+     * The ids are read on the calling thread, the items are processed on the processing executor
+     * @return future completed with only the items that were successfully updated and saved
      */
-    @Async
     public CompletableFuture<List<Item>> processItemsAsync() {
         // retrieves all ids
-        List<Long> itemIds = itemRepository.findAllIds();
-
-        // for each id, create an async task to process the item
-        List<CompletableFuture<Item>> futures = itemIds.stream()
-                .map(id -> CompletableFuture.supplyAsync(() -> {
-                    try{
-                        // get item by it
-                        Optional<Item> itemOptional = itemRepository.findById(id);
-                        if(itemOptional.isEmpty()) return null; // if null, return null
-
-                        // else update status and save
-                        Item item = itemOptional.get();
-                        item.setStatus("PROCESSED");
-                        return  itemRepository.save(item);
-                    }
-                    catch (Exception e) {
-                        return null;
-                    }
-                }, executor))
-                .toList();
+        return processItems(itemRepository.findAllIds());
+    }
 
-        // wait for all tasks to be completed
-        CompletableFuture<Void> allProcessed = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    /**
+     * Same as {@link #processItemsAsync()}, but at most one such run is in flight:
+     * a caller arriving while a run is in progress gets the result of that run instead of starting another one.
+     * The ids are read on the processing executor and the future is completed by the last processed item,
+     * so the calling thread returns right away: it has to compose on the future rather than block on it
+     * @return future completed with only the items that were successfully updated and saved
+     */
+    public CompletableFuture<List<Item>> processItemsShared() {
+        return processingAdmission.<CompletableFuture<List<Item>>>admit(ALL_ITEMS_RUN,
+                        () -> CompletableFuture.supplyAsync(itemRepository::findAllIds, executor)
+                                .thenCompose(this::processItems),
+                        run -> run)
+                .copy(); // a caller can't cancel the run for the others
+    }
 
-        // collect non-null results from completed futures
-        return allProcessed.thenApply(v ->
-                futures.stream()
-                        .map(CompletableFuture::join)
+    private CompletableFuture<List<Item>> processItems(List<Long> itemIds) {
+        // process the items, a bounded number at a time, and collect the non-null results
+        return processBounded(itemIds, this::processItem)
+                .thenApply(items -> items.stream()
                         .filter(Objects::nonNull)
                         .toList());
     }
 
-}
+    /**
+     * Processes the given ids with at most the configured number of items in flight at the same time:
+     * an item is only started once an earlier one is done, so the items don't pile up in the executor's queue
+     * (where their saves would wait behind the loads of the items started after them).
+     * No thread waits for the items, the last one completes the returned future
+     * @param ids the ids of the items
+     * @param process starts the processing of one item
+     * @return future completed with the result of each item, in the order of the ids (null if it failed)
+     */
+    private <T> CompletableFuture<List<T>> processBounded(List<Long> ids, Function<Long, CompletableFuture<T>> process) {
+        return new BoundedRun<>(ids, process).start(processingProperties.getMaxInFlight());
+    }
+
+    /**
+     * Processes all items as a bounded stream: ids are read in pages and at most window items
+     * are processed at the same time, each processed item is handed to onProcessed (in id order)
+     * as soon as it and the ones before it are done.
+     * Memory use depends on the window and page size, not on the number of items.
+     * If onProcessed throws (e.g. the client went away), no more items are started
+     * @param window maximum number of items being processed at the same time
+     * @param onProcessed receives every successfully processed item
+     * @return number of items processed successfully
+     */
+    public long processItemsStreaming(int window, Consumer<Item> onProcessed) {
+        return processItemsStreaming(window, false, onProcessed);
+    }
+
+    /**
+     * Same as {@link #processItemsStreaming(int, Consumer)}, optionally incremental
+     * @param window maximum number of items being processed at the same time
+     * @param incremental if true, only the items never processed or modified since they were last processed
+     *      are processed, so a run does the new work only
+     * @param onProcessed receives every successfully processed item
+     * @return number of items processed successfully
+     */
+    public long processItemsStreaming(int window, boolean incremental, Consumer<Item> onProcessed) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+
+        Deque<CompletableFuture<Item>> inFlight = new ArrayDeque<>(window);
+        long processed = 0;
+        Long afterId = Long.MIN_VALUE;
+        List<Long> ids;
+
+        do {
+            ids = incremental
+                    ? itemRepository.findIdsToProcessAfter(afterId, Limit.of(ID_PAGE_SIZE))
+                    : itemRepository.findIdsAfter(afterId, Limit.of(ID_PAGE_SIZE));
+            for (Long id : ids) {
+                // wait for the oldest item before starting a new one, once the window is full
+                if (inFlight.size() >= window) {
+                    processed += emit(inFlight.poll(), onProcessed);
+                }
+                inFlight.add(processItem(id));
+            }
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == ID_PAGE_SIZE);
+
+        while (!inFlight.isEmpty()) {
+            processed += emit(inFlight.poll(), onProcessed);
+        }
+        return processed;
+    }
+
+    /**
+     * Waits for an item to be processed and passes it on, unless it failed
+     * @return 1 if the item was processed, 0 otherwise
+     */
+    private int emit(CompletableFuture<Item> future, Consumer<Item> onProcessed) {
+        Item item = future.join();
+        if (item == null) return 0;
+
+        onProcessed.accept(item);
+        return 1;
+    }
 
+    /**
+     * Starts processing all items in the background, as a job whose progress can be followed
+     * @return the progress of the started job, including its id
+     * @throws IllegalStateException if no more jobs can be registered
+     */
+    public ProcessingJobStatus startProcessingJob() {
+        return startProcessingJob(false);
+    }
+
+    /**
+     * Starts processing items in the background, as a job whose progress can be followed.
+     * At most one job of each kind (all items, or only the unprocessed ones) runs at a time,
+     * while one is running its progress is returned instead of starting another one
+     * @param incremental if true, only the items never processed or modified since they were last processed
+     *      are processed
+     * @return the progress of the started job (or of the one running), including its id
+     * @throws IllegalStateException if no more jobs can be registered
+     */
+    public ProcessingJobStatus startProcessingJob(boolean incremental) {
+        return processingAdmission.admit(incremental ? UNPROCESSED_ITEMS_JOB : ALL_ITEMS_JOB,
+                () -> runProcessingJob(incremental), ProcessingJob::getCompletion).toStatus();
+    }
+
+    private ProcessingJob runProcessingJob(boolean incremental) {
+        ProcessingJob job = processingJobRegistry.register();
+
+        CompletableFuture.runAsync(() -> {
+            List<Long> itemIds = incremental
+                    ? itemRepository.findIdsToProcess()
+                    : itemRepository.findAllIds();
+            job.start(itemIds.size());
+
+            processBounded(itemIds, id -> {
+                // skip the items not picked up before cancelling
+                if (job.isCancelRequested()) return CompletableFuture.<Void>completedFuture(null);
+
+                return tryProcessItem(id).handle((item, e) -> {
+                    if (e != null) job.recordFailure();
+                    else if (item != null) job.recordSuccess();
+                    else job.recordNotFound(); // deleted since the ids were read
+                    return null;
+                });
+            }).whenComplete((v, e) -> job.complete());
+        }, executor).exceptionally(e -> {
+            job.fail();
+            return null;
+        });
+
+        return job;
+    }
+
+    /**
+     * Searches for a processing job by its id
+     * @param jobId the job's id
+     * @return Optional of the job's progress, empty Optional if the job doesn't exist or expired
+     */
+    public Optional<ProcessingJobStatus> getProcessingJob(String jobId) {
+        return processingJobRegistry.find(jobId).map(ProcessingJob::toStatus);
+    }
+
+    /**
+     * Requests the cancellation of a processing job,
+     * items already being processed are finished, the rest are skipped
+     * @param jobId the job's id
+     * @return Optional of the job's progress, empty Optional if the job doesn't exist or expired
+     */
+    public Optional<ProcessingJobStatus> cancelProcessingJob(String jobId) {
+        return processingJobRegistry.find(jobId).map(job -> {
+            job.cancel();
+            return job.toStatus();
+        });
+    }
+
+    /**
+     * Processes again the items whose processing failed, oldest failure first
+     * @param limit maximum number of items replayed
+     * @return how many items were replayed and how many of them succeeded
+     */
+    public DeadLetterReplayResult replayDeadLetters(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        int removed = deadLetterService.removeOrphans();
+        List<Long> itemIds = deadLetterService.findAll(limit).stream().map(DeadLetter::getItemId).toList();
+
+        // an item failing again gets its dead letter updated by processItem, a processed one gets it removed
+        int succeeded = (int) processBounded(itemIds, this::processItem).join().stream()
+                .filter(Objects::nonNull)
+                .count();
+        return new DeadLetterReplayResult(itemIds.size(), succeeded, itemIds.size() - succeeded, removed);
+    }
+
+    /**
+     * @param limit maximum number of dead letters returned
+     * @return the items whose processing failed, oldest failure first
+     */
+    public List<DeadLetter> findDeadLetters(int limit) {
+        return deadLetterService.findAll(limit);
+    }
+
+    /**
+     * Loads an item, runs it through the processing stages and saves it.
+     * Loading and saving run on the processing executor, the stages on their own threads,
+     * so the executor isn't held while the stages run.
+     * Attempts failing with a transient error are retried with a backoff, and the whole item is given up
+     * after the configured item timeout, so a stuck attempt can't stall the callers.
+     * The timeout starts with the first attempt, not while the item waits for the executor.
+     * Items given up are recorded as dead letters, and are not saved by an attempt finishing later
+     * @param id the item's id
+     * @return future completed with the saved item, or with null if the item doesn't exist or couldn't be processed
+     */
+    private CompletableFuture<Item> processItem(Long id) {
+        return tryProcessItem(id).exceptionally(e -> null);
+    }
+
+    /**
+     * Like {@link #processItem}, but an item that couldn't be processed completes the future exceptionally
+     * (once its failure is recorded), so that it can be told apart from an item that doesn't exist
+     * @param id the item's id
+     * @return future completed with the saved item, or with null if the item doesn't exist
+     */
+    private CompletableFuture<Item> tryProcessItem(Long id) {
+        Timer.Sample sample = processingMetrics.start();
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Item> result = new CompletableFuture<>();
+        attemptItem(id, result, attempts);
+
+        return result
+                .thenApply(saved -> {
+                    processingMetrics.recordItem(sample, saved == null
+                            ? ItemProcessingMetrics.Outcome.NOT_FOUND : ItemProcessingMetrics.Outcome.SUCCESS);
+                    return saved;
+                })
+                // recording the dead letter uses the database, so it must not run on the thread that timed out
+                .exceptionallyComposeAsync(e -> {
+                    Throwable cause = unwrap(e);
+                    log.warn("Processing of item {} failed after {} attempt(s): {}", id, attempts.get(), cause.toString());
+                    processingMetrics.recordError(cause);
+                    processingMetrics.recordItem(sample, ItemProcessingMetrics.Outcome.FAILURE);
+                    deadLetterService.record(id, cause, attempts.get());
+                    return CompletableFuture.failedFuture(cause);
+                }, executor);
+    }
+
+    /**
+     * Makes one processing attempt, completing result on success or on a failure that isn't retried.
+     * No new attempt is started once result is completed (e.g. by the timeout)
+     */
+    private void attemptItem(Long id, CompletableFuture<Item> result, AtomicInteger attempts) {
+        if (result.isDone()) return;
+
+        int attempt = attempts.incrementAndGet();
+        CompletableFuture.supplyAsync(() -> {
+                    // armed once the item holds the executor, so the time spent queued doesn't count
+                    if (attempt == 1) {
+                        result.orTimeout(processingProperties.getItemTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    return itemRepository.findById(id);
+                }, executor)
+                .thenCompose(itemOptional -> itemOptional
+                        .map(item -> {
+                            String previousStatus = item.getStatus(); // the stages modify the item
+                            return processingPipeline.submit(item)
+                                    // an item given up in the meantime is already dead-lettered
+                                    .thenApplyAsync(processed -> result.isDone() ? null
+                                            : saveProcessed(processed, previousStatus), executor);
+                        })
+                        .orElseGet(() -> CompletableFuture.completedFuture(null)))
+                .whenComplete((saved, e) -> {
+                    if (e == null) {
+                        result.complete(saved);
+                        return;
+                    }
+
+                    Throwable cause = unwrap(e);
+                    if (result.isDone() || !retryPolicy.shouldRetry(cause, attempt)) {
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    log.debug("Attempt {} to process item {} failed, retrying", attempt, id, cause);
+                    CompletableFuture.delayedExecutor(retryPolicy.backoff(attempt).toMillis(), TimeUnit.MILLISECONDS)
+                            .execute(() -> attemptItem(id, result, attempts));
+                });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private Item saveProcessed(Item item, String previousStatus) {
+        item.setNeedsProcessing(false); // until it is modified again
+        Item saved = transactionTemplate.execute(status -> {
+            Item entity = itemRepository.save(item);
+            changeFeed.statusChanged(entity.getId(), previousStatus, entity.getStatus());
+            return entity;
+        });
+        deadLetterService.remove(saved.getId()); // an earlier failure no longer applies
+        itemCache.put(saved);
+        statusCounters.statusChanged(previousStatus, saved.getStatus());
+        itemIndex.put(saved);
+        return saved;
+    }
+
+    /**
+     * Sets the status of all items to "PROCESSED" using set-based updates:
+     * the ids are read in pages of chunkSize ids (keyset pagination, so gaps in the ids cost nothing)
+     * and the id range of each page is updated with a single UPDATE statement in its own transaction,
+     * so the number of statements depends on the number of chunks, not on the number of rows.
+     * The items don't go through the processing stages (nor through the optional ones, if enabled),
+     * this is a fast path for when only the status matters
+     * @param chunkSize number of ids covered by one UPDATE statement
+     * @param includeChanged whether to also return the rows that were changed, read from the UPDATE statements
+     *      themselves (they are read anyway when the change feed is enabled, to be recorded with each chunk);
+     *      at most "items.processing.bulk-max-changed" rows are returned, the others are only counted
+     * @return number of chunks, number of updated rows and (optionally) the changed rows
+     */
+    public BulkProcessingResult processItemsInBulk(int chunkSize, boolean includeChanged) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        int maxChanged = includeChanged ? processingProperties.getBulkMaxChanged() : 0;
+        int chunks = 0;
+        long updated = 0;
+        List<ItemStatusChange> changed = new ArrayList<>();
+        List<ItemStatusChange> chunkChanged = new ArrayList<>();
+        boolean readChanged = includeChanged || changeFeed.isEnabled();
+
+        long afterId = Long.MIN_VALUE;
+        List<Long> ids;
+        do {
+            ids = itemRepository.findIdsAfter(afterId, Limit.of(chunkSize));
+            if (ids.isEmpty()) break;
+            long fromId = ids.get(0);
+            long toId = ids.get(ids.size() - 1);
+
+            chunkChanged.clear();
+            Integer count = transactionTemplate.execute(status -> {
+                deadLetterService.removeInRange(fromId, toId);
+                if (!readChanged) {
+                    return itemRepository.updateStatusInRange(fromId, toId, PROCESSED_STATUS);
+                }
+                chunkChanged.addAll(itemRepository.updateStatusInRangeReturningChanges(fromId, toId, PROCESSED_STATUS));
+                changeFeed.statusChanged(chunkChanged, PROCESSED_STATUS);
+                return chunkChanged.size();
+            });
+
+            chunks++;
+            updated += count == null ? 0 : count;
+            afterId = toId;
+            if (count != null && count > 0) {
+                // the updated rows aren't known one by one, so nothing cached can be trusted anymore
+                itemCache.invalidateAll();
+                if (readChanged) {
+                    chunkChanged.forEach(change -> {
+                        statusCounters.statusChanged(change.previousStatus(), PROCESSED_STATUS);
+                        itemIndex.statusChanged(change.id(), PROCESSED_STATUS);
+                    });
+                    if (changed.size() < maxChanged) {
+                        changed.addAll(chunkChanged.subList(0, Math.min(count, maxChanged - changed.size())));
+                    }
+                }
+                else {
+                    statusCounters.markStale(); // the previous statuses weren't read
+                    itemIndex.markStale(); // nor the updated ids
+                }
+            }
+        }
+        while (ids.size() == chunkSize);
+
+        return new BulkProcessingResult(chunks, updated, changed, includeChanged && updated > changed.size());
+    }
+
+    /**
+     * Processes a list of ids with at most a fixed number of items in flight,
+     * each item done starts the next one
+     */
+    private static final class BoundedRun<T> {
+        private final List<Long> ids;
+        private final Function<Long, CompletableFuture<T>> process;
+        private final AtomicReferenceArray<T> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<T>> completion = new CompletableFuture<>();
+
+        private BoundedRun(List<Long> ids, Function<Long, CompletableFuture<T>> process) {
+            this.ids = ids;
+            this.process = process;
+            this.results = new AtomicReferenceArray<>(ids.size());
+            this.remaining = new AtomicInteger(ids.size());
+        }
+
+        private CompletableFuture<List<T>> start(int maxInFlight) {
+            if (ids.isEmpty()) {
+                completion.complete(List.of());
+            }
+            for (int i = 0; i < Math.min(Math.max(1, maxInFlight), ids.size()); i++) {
+                startNext();
+            }
+            return completion;
+        }
+
+        /**
+         * Starts the next item, items done right away are followed by the next one in this loop
+         * rather than by nested calls
+         */
+        private void startNext() {
+            int index;
+            while ((index = next.getAndIncrement()) < ids.size()) {
+                int position = index;
+                CompletableFuture<T> future = process.apply(ids.get(position))
+                        .exceptionally(e -> null); // a failed item doesn't stop the others
+                if (!future.isDone()) {
+                    future.thenAccept(result -> {
+                        finish(position, result);
+                        startNext();
+                    });
+                    return;
+                }
+                finish(position, future.join());
+            }
+        }
+
+        private void finish(int position, T result) {
+            results.set(position, result);
+            if (remaining.decrementAndGet() > 0) return;
+
+            List<T> all = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                all.add(results.get(i));
+            }
+            completion.complete(all);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.siemens.internship.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Rows of a block of an item snapshot, held column by column, and their binary encoding:
+ * <pre>
+ * int     rows
+ * long[]  id
+ * long[]  version                     (Long.MIN_VALUE for null)
+ * long[]  updated_at epoch seconds    (Long.MIN_VALUE for null)
+ * int[]   updated_at nanoseconds
+ * byte[]  needs_processing            (1 or 0, since format version 3)
+ * then for name, description, status and email:
+ * int[]   UTF-8 length of each value  (-1 for null)
+ * byte[]  the UTF-8 values, one after the other
+ * </pre>
+ * A block is filled and encoded (or decoded and inserted) by a single thread, and can be reused for the next block.
+ * Decoding a block with more rows than the capacity grows the arrays to its row count.
+ * Blocks of older formats have no needs_processing column: only their items not PROCESSED need processing.
+ */
+class ItemSnapshotBlock {
+
+    static final String SELECT =
+            "SELECT id, name, description, status, email, version, updated_at, needs_processing FROM items";
+    static final String INSERT = "INSERT INTO items (id, name, description, status, email, version, updated_at, " +
+            "needs_processing) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_LENGTH = -1;
+    private static final int COLUMNS = 4; // string columns: name, description, status, email
+    private static final int MIN_ROW_SIZE = 3 * Long.BYTES + Integer.BYTES + Byte.BYTES + COLUMNS * Integer.BYTES;
+    private static final String PROCESSED_STATUS = "PROCESSED";
+
+    private long[] ids;
+    private long[] versions;
+    private long[] seconds;
+    private int[] nanos;
+    private boolean[] needsProcessing;
+    private String[][] strings;
+    private byte[] scratch = new byte[256];
+    private int rows;
+
+    ItemSnapshotBlock(int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        versions = new long[capacity];
+        seconds = new long[capacity];
+        nanos = new int[capacity];
+        needsProcessing = new boolean[capacity];
+        strings = new String[COLUMNS][capacity];
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    boolean isFull() {
+        return rows == ids.length;
+    }
+
+    long lastId() {
+        return ids[rows - 1];
+    }
+
+    void clear() {
+        rows = 0;
+    }
+
+    /**
+     * Adds the current row of a result set of {@link #SELECT}
+     */
+    void add(ResultSet resultSet) throws SQLException {
+        int row = rows++;
+        ids[row] = resultSet.getLong(1);
+        for (int column = 0; column < COLUMNS; column++) {
+            strings[column][row] = resultSet.getString(column + 2);
+        }
+        long version = resultSet.getLong(6);
+        versions[row] = resultSet.wasNull() ? NULL_LONG : version;
+        OffsetDateTime updatedAt = resultSet.getObject(7, OffsetDateTime.class);
+        seconds[row] = updatedAt == null ? NULL_LONG : updatedAt.toEpochSecond();
+        nanos[row] = updatedAt == null ? 0 : updatedAt.getNano();
+        needsProcessing[row] = resultSet.getBoolean(8);
+    }
+
+    /**
+     * Sets the parameters of {@link #INSERT} to the values of a row
+     */
+    void bind(PreparedStatement statement, int row) throws SQLException {
+        statement.setLong(1, ids[row]);
+        for (int column = 0; column < COLUMNS; column++) {
+            statement.setString(column + 2, strings[column][row]);
+        }
+        statement.setLong(6, versions[row] == NULL_LONG ? 0 : versions[row]); // the column is NOT NULL DEFAULT 0
+        statement.setObject(7, seconds[row] == NULL_LONG ? null
+                : OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds[row], nanos[row]), ZoneOffset.UTC));
+        statement.setBoolean(8, needsProcessing[row]);
+    }
+
+    /**
+     * @return the exact number of bytes written by {@link #writeTo}
+     */
+    int encodedSize() {
+        long size = Integer.BYTES + (long) rows * MIN_ROW_SIZE;
+        for (String[] column : strings) {
+            for (int row = 0; row < rows; row++) {
+                if (column[row] != null) size += utf8Length(column[row]);
+            }
+        }
+        return Math.toIntExact(size);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(rows);
+        for (int row = 0; row < rows; row++) buffer.putLong(ids[row]);
+        for (int row = 0; row < rows; row++) buffer.putLong(versions[row]);
+        for (int row = 0; row < rows; row++) buffer.putLong(seconds[row]);
+        for (int row = 0; row < rows; row++) buffer.putInt(nanos[row]);
+        for (int row = 0; row < rows; row++) buffer.put(needsProcessing[row] ? (byte) 1 : 0);
+
+        for (String[] column : strings) {
+            for (int row = 0; row < rows; row++) {
+                buffer.putInt(column[row] == null ? NULL_LENGTH : utf8Length(column[row]));
+            }
+            for (int row = 0; row < rows; row++) {
+                if (column[row] != null) putUtf8(buffer, column[row]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the rows with the ones of an encoded block, growing this block if it has more rows
+     * @param withNeedsProcessing whether the block has the needs_processing column (format version 3 and later)
+     * @throws IllegalArgumentException if the block is invalid or truncated
+     */
+    void readFrom(ByteBuffer buffer, boolean withNeedsProcessing) {
+        int count = buffer.getInt();
+        // every row takes at least its fixed-size columns, so a larger count can't be right
+        int minRowSize = withNeedsProcessing ? MIN_ROW_SIZE : MIN_ROW_SIZE - Byte.BYTES;
+        if (count < 0 || (long) count * minRowSize > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid block of " + count + " rows");
+        }
+        if (count > ids.length) allocate(count);
+        rows = count;
+        for (int row = 0; row < rows; row++) ids[row] = buffer.getLong();
+        for (int row = 0; row < rows; row++) versions[row] = buffer.getLong();
+        for (int row = 0; row < rows; row++) seconds[row] = buffer.getLong();
+        for (int row = 0; row < rows; row++) nanos[row] = buffer.getInt();
+        if (withNeedsProcessing) {
+            for (int row = 0; row < rows; row++) needsProcessing[row] = buffer.get() != 0;
+        }
+
+        for (String[] column : strings) {
+            int lengthsStart = buffer.position();
+            int valuesStart = lengthsStart + rows * Integer.BYTES;
+            buffer.position(valuesStart);
+            for (int row = 0; row < rows; row++) {
+                int length = buffer.getInt(lengthsStart + row * Integer.BYTES);
+                column[row] = length == NULL_LENGTH ? null : getUtf8(buffer, length);
+            }
+        }
+        if (!withNeedsProcessing) {
+            String[] statuses = strings[2];
+            for (int row = 0; row < rows; row++) needsProcessing[row] = !PROCESSED_STATUS.equals(statuses[row]);
+        }
+    }
+
+    private String getUtf8(ByteBuffer buffer, int length) {
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of bytes of the UTF-8 encoding of the value, without encoding it
+     */
+    static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) bytes += 1;
+            else if (!Character.isSurrogate(c)) bytes += 2;
+            else if (isPair(value, i)) {
+                bytes += 2; // 4 bytes for 2 chars
+                i++;
+            }
+            // an unpaired surrogate is written as a single '?'
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the value straight into the buffer,
+     * unpaired surrogates are written as '?' like String.getBytes does
+     */
+    private static void putUtf8(ByteBuffer buffer, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            }
+            else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (isPair(value, i)) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | codePoint >> 18));
+                    buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint & 0x3F));
+                }
+                else {
+                    buffer.put((byte) '?');
+                }
+            }
+            else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static boolean isPair(String value, int i) {
+        return Character.isHighSurrogate(value.charAt(i)) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1));
+    }
+}
@@ -0,0 +1,61 @@
+package com.siemens.internship.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line mode exporting or importing a snapshot at startup:
+ * {@code --snapshot.export=<file>} writes all the items to the file,
+ * {@code --snapshot.import=<file>} loads the file into the (empty) items table.
+ * The application exits once the command is done, see {@link com.siemens.internship.InternshipApplication}
+ */
+@Slf4j
+@Component
+public class ItemSnapshotCommand implements ApplicationRunner {
+    public static final String EXPORT_OPTION = "snapshot.export";
+    public static final String IMPORT_OPTION = "snapshot.import";
+
+    private final ItemSnapshotService itemSnapshotService;
+
+    public ItemSnapshotCommand(ItemSnapshotService itemSnapshotService) {
+        this.itemSnapshotService = itemSnapshotService;
+    }
+
+    /**
+     * @param args the command line arguments
+     * @return true if the arguments ask for a snapshot export or import
+     */
+    public static boolean isCommand(String... args) {
+        return Arrays.stream(args)
+                .anyMatch(arg -> arg.startsWith("--" + EXPORT_OPTION + "=") || arg.startsWith("--" + IMPORT_OPTION + "="));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> exports = args.getOptionValues(EXPORT_OPTION);
+        List<String> imports = args.getOptionValues(IMPORT_OPTION);
+        if (exports != null && imports != null) {
+            throw new IllegalArgumentException("Only one of --" + EXPORT_OPTION + " and --" + IMPORT_OPTION + " can be given");
+        }
+
+        if (exports != null) {
+            log.info("Snapshot export done: {}", itemSnapshotService.exportTo(Path.of(single(exports, EXPORT_OPTION))));
+        }
+        else if (imports != null) {
+            log.info("Snapshot import done: {}", itemSnapshotService.importFrom(Path.of(single(imports, IMPORT_OPTION))));
+        }
+    }
+
+    private static String single(List<String> values, String option) {
+        if (values.size() != 1 || values.get(0).isBlank()) {
+            throw new IllegalArgumentException("--" + option + " needs exactly one file");
+        }
+        return values.get(0);
+    }
+}
@@ -0,0 +1,415 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemSnapshotProperties;
+import com.siemens.internship.model.SnapshotResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Service class for exporting the items table to a columnar binary snapshot and importing it back.
+ * The file is written and read through memory-mapped regions, one per block of rows:
+ * <pre>
+ * header   "ITEMSNAP", int format version, int block count, long row count, long index offset,
+ *          int rows per block (since format version 2)
+ * blocks   see {@link ItemSnapshotBlock}
+ * index    long offset and int length of each block
+ * </pre>
+ * All numbers are little-endian. Blocks are imported in parallel with JDBC batch inserts,
+ * each block in its own transaction, by the threads of a pool shared by the imports.
+ * A completed import is recorded in the change feed as a single reset, not item by item.
+ */
+@Slf4j
+@Service
+public class ItemSnapshotService implements AutoCloseable {
+    public static final String FILE_EXTENSION = ".snapshot";
+
+    private static final byte[] MAGIC = "ITEMSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 3;
+    private static final int V1_HEADER_SIZE = MAGIC.length + 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int HEADER_SIZE = V1_HEADER_SIZE + Integer.BYTES;
+    private static final int MIN_BLOCK_SIZE = Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,99}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTransactionTemplate;
+    private final ItemCache itemCache;
+    private final ItemStatusCounters statusCounters;
+    private final ItemIndex itemIndex;
+    private final ItemChangeFeed changeFeed;
+    private final ItemSnapshotProperties properties;
+    private final ThreadPoolExecutor importExecutor;
+
+    public ItemSnapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               ItemCache itemCache, ItemStatusCounters statusCounters, ItemIndex itemIndex,
+                               ItemChangeFeed changeFeed, ItemSnapshotProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate.setReadOnly(true);
+        this.snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.itemCache = itemCache;
+        this.statusCounters = statusCounters;
+        this.itemIndex = itemIndex;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        // the threads only live while imports run
+        this.importExecutor = new ThreadPoolExecutor(properties.getImportThreads(), properties.getImportThreads(),
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("item-snapshot-"));
+        this.importExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Resolves the file of a named snapshot in the configured directory
+     * @param name the snapshot's name, made of letters, digits, '.', '_' and '-' (not starting with '.')
+     * @return the snapshot file
+     * @throws IllegalArgumentException if the name is not valid
+     */
+    public Path resolve(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot name");
+        }
+        return properties.getDirectory().resolve(name + FILE_EXTENSION);
+    }
+
+    /**
+     * Writes all the items to a snapshot file, replacing it if it exists.
+     * The items are read by id ranges, in one repeatable read transaction;
+     * the file is written next to the target and moved in place once complete
+     * @param file the snapshot file
+     * @return the number of items and the size of the file
+     * @throws IOException if the file can't be written
+     */
+    public SnapshotResult exportTo(Path file) throws IOException {
+        long start = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(target.getParent());
+            long[] written;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                written = snapshotTransactionTemplate.execute(status -> writeBlocks(channel));
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            SnapshotResult result = new SnapshotResult(target.toString(), written[0], written[1], elapsedMillis(start));
+            log.info("Exported {} items to {} ({} bytes) in {} ms", result.rows(), target, result.bytes(),
+                    result.durationMillis());
+            return result;
+        }
+        catch (IOException | RuntimeException e) {
+            deleteQuietly(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Inserts the items of a snapshot file into the (empty) items table, keeping their ids and versions,
+     * and moves the id sequence past the imported ids.
+     * The blocks are loaded in parallel, each in its own transaction: if one fails, the blocks already
+     * loaded stay in the table. Ids this process already reserved from the sequence before the import
+     * aren't moved, so the table should have stayed empty since the process started
+     * @param file the snapshot file
+     * @return the number of imported items and the size of the file
+     * @throws NoSuchFileException if the file doesn't exist
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     * @throws IllegalStateException if the items table is not empty
+     */
+    public SnapshotResult importFrom(Path file) throws IOException {
+        long start = System.nanoTime();
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < V1_HEADER_SIZE) throw new IllegalArgumentException("Not an item snapshot");
+
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, V1_HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IllegalArgumentException("Not an item snapshot");
+            int version = header.getInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot format version " + version);
+            }
+            int blockCount = header.getInt();
+            long rowCount = header.getLong();
+            long indexOffset = header.getLong();
+            int headerSize = version == 1 ? V1_HEADER_SIZE : HEADER_SIZE;
+            if (blockCount < 0 || indexOffset < headerSize
+                    || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE > size) {
+                throw new IllegalArgumentException("Truncated item snapshot");
+            }
+            // the blocks of version 1 files have the export's block size, unknown here: the buffers grow as needed
+            int blockRows = version == 1 ? 0
+                    : map(channel, FileChannel.MapMode.READ_ONLY, V1_HEADER_SIZE, Integer.BYTES).getInt();
+            if (blockRows < 0) throw new IllegalArgumentException("Invalid block size in the item snapshot");
+
+            Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Long.class);
+            if (existing != null && existing > 0) {
+                throw new IllegalStateException("The items table is not empty");
+            }
+
+            ByteBuffer index = map(channel, FileChannel.MapMode.READ_ONLY, indexOffset,
+                    (long) blockCount * INDEX_ENTRY_SIZE);
+            long imported = importBlocks(channel, index, blockCount, headerSize, indexOffset, blockRows,
+                    version >= 3);
+            if (imported != rowCount) {
+                log.warn("Snapshot {} announces {} items but has {}", file, rowCount, imported);
+            }
+
+            moveSequencePastImportedIds();
+            itemCache.invalidateAll();
+            statusCounters.markStale();
+            itemIndex.markStale();
+            // the rows were inserted around the change feed, its consumers have to read them all
+            changeFeed.reset();
+
+            SnapshotResult result = new SnapshotResult(file.toAbsolutePath().toString(), imported, size,
+                    elapsedMillis(start));
+            log.info("Imported {} items from {} in {} ms", imported, file, result.durationMillis());
+            return result;
+        }
+    }
+
+    /**
+     * Reads the items by blocks of ids and writes each block to its own mapped region, then the index and the header
+     * @return the number of rows and the size of the file
+     */
+    private long[] writeBlocks(FileChannel channel) {
+        ItemSnapshotBlock block = new ItemSnapshotBlock(properties.getBlockSize());
+        String select = ItemSnapshotBlock.SELECT + " WHERE id > ? ORDER BY id LIMIT " + properties.getBlockSize();
+        List<long[]> blocks = new ArrayList<>();
+        long position = HEADER_SIZE;
+        long rows = 0;
+        long afterId = Long.MIN_VALUE;
+
+        try {
+            while (true) {
+                block.clear();
+                jdbcTemplate.query(select, block::add, afterId);
+                if (block.rows() == 0) break;
+
+                int length = block.encodedSize();
+                MappedByteBuffer buffer = map(channel, FileChannel.MapMode.READ_WRITE, position, length);
+                block.writeTo(buffer);
+                buffer.force();
+                blocks.add(new long[]{position, length});
+                position += length;
+                rows += block.rows();
+                if (!block.isFull()) break;
+                afterId = block.lastId();
+            }
+
+            MappedByteBuffer index = map(channel, FileChannel.MapMode.READ_WRITE, position,
+                    (long) blocks.size() * INDEX_ENTRY_SIZE);
+            for (long[] entry : blocks) {
+                index.putLong(entry[0]);
+                index.putInt((int) entry[1]);
+            }
+            index.force();
+
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.put(MAGIC);
+            header.putInt(FORMAT_VERSION);
+            header.putInt(blocks.size());
+            header.putLong(rows);
+            header.putLong(position);
+            header.putInt(properties.getBlockSize());
+            header.force();
+
+            return new long[]{rows, position + (long) blocks.size() * INDEX_ENTRY_SIZE};
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the blocks with up to the configured number of threads, each taking the next block when done with one
+     * @param blockRows the rows per block announced by the file, 0 if unknown
+     * @param withNeedsProcessing whether the blocks have the needs_processing column (since format version 3)
+     * @return the number of imported rows
+     */
+    private long importBlocks(FileChannel channel, ByteBuffer index, int blockCount, int headerSize, long indexOffset,
+                              int blockRows, boolean withNeedsProcessing) throws IOException {
+        if (blockCount == 0) return 0;
+
+        List<ByteBuffer> regions = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            long offset = index.getLong();
+            int length = index.getInt();
+            if (offset < headerSize || length < MIN_BLOCK_SIZE || offset + length > indexOffset) {
+                throw new IllegalArgumentException("Invalid block " + i + " in the item snapshot");
+            }
+            regions.add(map(channel, FileChannel.MapMode.READ_ONLY, offset, length));
+        }
+
+        int threads = Math.max(1, Math.min(properties.getImportThreads(), blockCount));
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Future<Long>> futures = new ArrayList<>(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(importExecutor.submit(() -> importBlocks(regions, next, stopped, blockRows,
+                        withNeedsProcessing)));
+            }
+
+            long rows = 0;
+            for (Future<Long> future : futures) {
+                rows += future.get();
+            }
+            return rows;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing the item snapshot", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Couldn't import the item snapshot", e.getCause());
+        }
+        finally {
+            stopped.set(true); // the other threads don't start new blocks if one failed
+        }
+    }
+
+    /**
+     * Imports the blocks not taken by another thread yet, reusing the same buffers for all of them
+     * @return the number of rows imported by this thread
+     */
+    private long importBlocks(List<ByteBuffer> regions, AtomicInteger next, AtomicBoolean stopped, int blockRows,
+                              boolean withNeedsProcessing) {
+        ItemSnapshotBlock block = new ItemSnapshotBlock(blockRows);
+        long rows = 0;
+        for (int i = next.getAndIncrement(); i < regions.size() && !stopped.get(); i = next.getAndIncrement()) {
+            try {
+                rows += importBlock(block, regions.get(i), withNeedsProcessing);
+            }
+            catch (RuntimeException e) {
+                stopped.set(true);
+                throw e;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Decodes a block and inserts its rows with JDBC batches, in one transaction
+     * @return the number of inserted rows
+     */
+    private int importBlock(ItemSnapshotBlock block, ByteBuffer region, boolean withNeedsProcessing) {
+        try {
+            block.readFrom(region, withNeedsProcessing);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated block in the item snapshot", e);
+        }
+
+        int batchSize = properties.getBatchSize();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < block.rows(); from += batchSize) {
+                int first = from;
+                int count = Math.min(batchSize, block.rows() - from);
+                jdbcTemplate.batchUpdate(ItemSnapshotBlock.INSERT, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        block.bind(statement, first + i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                });
+            }
+        });
+        return block.rows();
+    }
+
+    /**
+     * Restarts the id sequence so that the next ids are above the imported ones.
+     * Ids are allocated by blocks of the sequence increment ending at the value the sequence returns,
+     * so the next value has to be at least the highest id plus the increment.
+     * The sequence is read and restarted with H2's syntax (INFORMATION_SCHEMA.SEQUENCES.INCREMENT,
+     * NEXT VALUE FOR, ALTER SEQUENCE ... RESTART WITH): another database needs its own statements here
+     */
+    private void moveSequencePastImportedIds() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM items", Long.class);
+        if (maxId == null) return;
+
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ITEMS_SEQ'", Long.class);
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR items_seq", Long.class);
+        long required = maxId + (increment == null ? 1 : increment);
+        if (next == null || next < required) {
+            jdbcTemplate.execute("ALTER SEQUENCE items_seq RESTART WITH " + required);
+        }
+    }
+
+    /**
+     * Stops the import threads, interrupting a running import
+     */
+    @Override
+    public void close() {
+        importExecutor.shutdownNow();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn("Couldn't delete {}", file, e);
+        }
+    }
+}
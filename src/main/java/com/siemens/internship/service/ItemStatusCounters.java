@@ -0,0 +1,166 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ItemStatistics;
+import com.siemens.internship.model.ItemStatusCount;
+import com.siemens.internship.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory number of items per status, so that statistics are read without querying the items.
+ * The services report the changes whose effect is known: creations, updates and deletions (whose statements
+ * return the previous status) and status changes of processed items.
+ * Changes with an unknown effect (write-behind updates, bulk and partitioned runs without the change feed,
+ * imports) only mark the counters as stale.
+ * The counters are replaced by a GROUP BY count when they are stale (checked every
+ * "items.stats.refresh-interval") and at least every "items.stats.reconcile-interval",
+ * which also picks up changes made outside this node.
+ * Every reported change also increments a change counter, telling whether a change was counted while a
+ * reconciliation ran.
+ */
+@Slf4j
+@Component
+public class ItemStatusCounters {
+
+    private final ItemRepository itemRepository;
+    private final Duration reconcileInterval;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong(); // incremented on every reported change
+    private volatile boolean stale = true;
+    private volatile Instant reconciledAt;
+
+    public ItemStatusCounters(ItemRepository itemRepository,
+                              @Value("${items.stats.reconcile-interval:PT1M}") Duration reconcileInterval) {
+        this.itemRepository = itemRepository;
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    /**
+     * Counts a new item
+     * @param status the status of the new item
+     */
+    public void created(String status) {
+        counter(status).increment();
+        recordChange();
+    }
+
+    /**
+     * Moves an item from one status to another
+     * @param previousStatus the status the item had
+     * @param status the status the item has now
+     */
+    public void statusChanged(String previousStatus, String status) {
+        if (previousStatus == null || !previousStatus.equals(status)) {
+            uncount(previousStatus);
+            counter(status).increment();
+        }
+        recordChange(); // the item changed, even if its status didn't
+    }
+
+    /**
+     * Uncounts a deleted item
+     * @param status the status the item had
+     */
+    public void deleted(String status) {
+        uncount(status);
+        recordChange();
+    }
+
+    private void uncount(String status) {
+        LongAdder counter = counter(status);
+        counter.decrement();
+        if (counter.sum() < 0) {
+            stale = true; // the item was counted elsewhere, the counters drifted from the database
+        }
+    }
+
+    /**
+     * Reports changes whose effect on the counts isn't known, they are reconciled on the next refresh
+     */
+    public void markStale() {
+        stale = true;
+        recordChange();
+    }
+
+    private void recordChange() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * @return the current counts, read from memory (reconciled first if they were never reconciled)
+     */
+    public ItemStatistics snapshot() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+
+        Map<String, Long> byStatus = currentCounts();
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new ItemStatistics(total, byStatus, reconciledAt, stale);
+    }
+
+    private Map<String, Long> currentCounts() {
+        Map<String, Long> byStatus = new TreeMap<>();
+        counts.forEach((status, counter) -> {
+            long count = counter.sum();
+            if (count > 0) byStatus.put(status, count);
+        });
+        return byStatus;
+    }
+
+    /**
+     * Replaces the counters with the counts of the database
+     */
+    public synchronized void reconcile() {
+        long changesBefore = changes.get();
+        stale = false;
+
+        Map<String, Long> actual = new TreeMap<>();
+        for (ItemStatusCount count : itemRepository.countByStatus()) {
+            actual.put(count.status(), count.count());
+        }
+
+        counts.keySet().retainAll(actual.keySet());
+        actual.forEach((status, count) -> {
+            LongAdder counter = counter(status);
+            counter.reset();
+            counter.add(count);
+        });
+        reconciledAt = Instant.now();
+
+        // a change counted while the query ran may or may not be part of its result
+        if (changes.get() != changesBefore) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Reconciles the counters if they are stale or weren't reconciled for a while
+     */
+    @Scheduled(fixedDelayString = "${items.stats.refresh-interval:PT5S}")
+    public void refresh() {
+        Instant last = reconciledAt;
+        if (stale || last == null || last.plus(reconcileInterval).isBefore(Instant.now())) {
+            try {
+                reconcile();
+            }
+            catch (RuntimeException e) {
+                log.warn("Could not reconcile the item counters", e);
+            }
+        }
+    }
+
+    private LongAdder counter(String status) {
+        return counts.computeIfAbsent(status == null ? "" : status, key -> new LongAdder());
+    }
+}
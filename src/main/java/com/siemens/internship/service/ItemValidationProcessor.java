@@ -0,0 +1,50 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Example processing stage rejecting the items that don't satisfy the Item constraints,
+ * so invalid items are never saved as processed (they are dead-lettered instead).
+ * Only runs if "items.processing.stages.validate.enabled" is true
+ */
+@Component
+@Order(200)
+@ConditionalOnProperty(prefix = "items.processing.stages.validate", name = "enabled", havingValue = "true")
+public class ItemValidationProcessor implements ItemProcessor {
+
+    private final ItemValidator itemValidator;
+    private final Validator validator;
+
+    public ItemValidationProcessor(ItemValidator itemValidator, Validator validator) {
+        this.itemValidator = itemValidator;
+        this.validator = validator;
+    }
+
+    @Override
+    public String name() {
+        return "validate";
+    }
+
+    /**
+     * @throws ConstraintViolationException if an item of the batch is invalid
+     */
+    @Override
+    public void process(List<Item> items) {
+        for (Item item : items) {
+            if (!itemValidator.isValid(item)) {
+                // bean validation only runs for the (rare) invalid items, to build the violations
+                Set<ConstraintViolation<Item>> violations = validator.validate(item);
+                throw new ConstraintViolationException("Item " + item.getId() + " is invalid", violations);
+            }
+        }
+    }
+}
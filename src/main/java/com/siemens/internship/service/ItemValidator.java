@@ -0,0 +1,217 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written validator checking the same constraints as the annotations of Item
+ * (@NotBlank, @Size and the email @Pattern), without reflection or regular expressions.
+ * A valid item is checked without allocating anything; the errors of an invalid item have the same
+ * field, codes, arguments and messages as the ones the bean validation adapter puts in a BindingResult.
+ * Any change to the Item constraints has to be made here as well
+ */
+@Component
+public class ItemValidator implements Validator {
+
+    private static final Object[] NOT_BLANK_ARGS = {};
+    private static final Object[] PATTERN_ARGS = {new Pattern.Flag[0],
+            new ResolvableAttribute("^[A-Za-z0-9+_.-]+@[A-Za-z0-9-]+\\.[A-Za-z]{2,}$")};
+
+    private static final Constraint NAME_NOT_BLANK = notBlank("name", "Name can't be blank");
+    private static final Constraint NAME_SIZE = size("name", 100, "Name can't have more than 100 characters");
+    private static final Constraint DESCRIPTION_NOT_BLANK = notBlank("description", "Description can't be blank");
+    private static final Constraint DESCRIPTION_SIZE =
+            size("description", 255, "Description can't have more than 255 characters");
+    private static final Constraint STATUS_NOT_BLANK = notBlank("status", "Status can't be blank");
+    private static final Constraint STATUS_SIZE = size("status", 50, "Status can't have more than 50 characters");
+    private static final Constraint EMAIL_NOT_BLANK = notBlank("email", "Email can't be blank");
+    private static final Constraint EMAIL_PATTERN =
+            new Constraint("email", "Pattern", PATTERN_ARGS, "Invalid email format");
+    private static final Constraint EMAIL_SIZE = size("email", 254, "Email can't have more than 254 characters");
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return Item.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * Adds a field error for each violated constraint
+     * @param target the item to be validated
+     * @param errors where the errors are added
+     */
+    @Override
+    public void validate(Object target, Errors errors) {
+        Item item = (Item) target;
+        if (check(item, null)) return;
+
+        check(item, constraint -> errors.rejectValue(constraint.field(), constraint.code(),
+                constraint.arguments(errors.getObjectName()), constraint.message()));
+    }
+
+    /**
+     * @param item the item to be validated
+     * @return true if the item satisfies all the constraints
+     */
+    public boolean isValid(Item item) {
+        return check(item, null);
+    }
+
+    /**
+     * @param item the item to be validated
+     * @return the messages of the violated constraints, sorted, empty if the item is valid
+     */
+    public List<String> getMessages(Item item) {
+        if (check(item, null)) return List.of();
+
+        List<String> messages = new ArrayList<>();
+        check(item, constraint -> messages.add(constraint.message()));
+        messages.sort(null);
+        return messages;
+    }
+
+    /**
+     * Checks every constraint, in the order of the fields
+     * @param handler called for each violated constraint, if null the check stops at the first one
+     * @return without a handler, true if no constraint is violated (a handler is only given for invalid items)
+     */
+    private static boolean check(Item item, @Nullable ViolationHandler handler) {
+        String name = item.getName();
+        String description = item.getDescription();
+        String status = item.getStatus();
+        String email = item.getEmail();
+
+        if (isBlank(name) && !reject(handler, NAME_NOT_BLANK)) return false;
+        if (name != null && name.length() > 100 && !reject(handler, NAME_SIZE)) return false;
+        if (isBlank(description) && !reject(handler, DESCRIPTION_NOT_BLANK)) return false;
+        if (description != null && description.length() > 255 && !reject(handler, DESCRIPTION_SIZE)) return false;
+        if (isBlank(status) && !reject(handler, STATUS_NOT_BLANK)) return false;
+        if (status != null && status.length() > 50 && !reject(handler, STATUS_SIZE)) return false;
+        if (isBlank(email) && !reject(handler, EMAIL_NOT_BLANK)) return false;
+        if (email != null && !isEmail(email) && !reject(handler, EMAIL_PATTERN)) return false;
+        if (email != null && email.length() > 254 && !reject(handler, EMAIL_SIZE)) return false;
+        return handler == null;
+    }
+
+    /**
+     * Reports a violation to the handler
+     * @return true if the check goes on, false if it stops (there is no handler)
+     */
+    private static boolean reject(@Nullable ViolationHandler handler, Constraint constraint) {
+        if (handler == null) return false;
+        handler.reject(constraint);
+        return true;
+    }
+
+    /**
+     * Same as @NotBlank: null, or only whitespace and control characters (the ones String.trim removes)
+     */
+    private static boolean isBlank(@Nullable String value) {
+        if (value == null) return true;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as matching the whole value with ^[A-Za-z0-9+_.-]+@[A-Za-z0-9-]+\.[A-Za-z]{2,}$
+     */
+    private static boolean isEmail(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && isLocalChar(value.charAt(i))) i++;
+        if (i == 0 || i == length || value.charAt(i) != '@') return false;
+
+        int domainStart = ++i;
+        while (i < length && isDomainChar(value.charAt(i))) i++;
+        if (i == domainStart || i == length || value.charAt(i) != '.') return false;
+
+        int topLevelStart = ++i;
+        while (i < length && isLetter(value.charAt(i))) i++;
+        return i == length && i - topLevelStart >= 2;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isDomainChar(c) || c == '+' || c == '_' || c == '.';
+    }
+
+    private static Constraint notBlank(String field, String message) {
+        return new Constraint(field, "NotBlank", NOT_BLANK_ARGS, message);
+    }
+
+    private static Constraint size(String field, int max, String message) {
+        return new Constraint(field, "Size", new Object[]{max, 0}, message);
+    }
+
+    @FunctionalInterface
+    private interface ViolationHandler {
+        void reject(Constraint constraint);
+    }
+
+    /**
+     * A constraint of one field
+     * @param code name of the constraint annotation, used as error code
+     * @param attributes the annotation's attributes other than message, groups and payload, sorted by name
+     *      (the error arguments after the field, as the bean validation adapter builds them)
+     */
+    private record Constraint(String field, String code, Object[] attributes, String message) {
+
+        Object[] arguments(String objectName) {
+            Object[] arguments = new Object[attributes.length + 1];
+            arguments[0] = new DefaultMessageSourceResolvable(new String[]{objectName + "." + field, field}, field);
+            System.arraycopy(attributes, 0, arguments, 1, attributes.length);
+            return arguments;
+        }
+    }
+
+    /**
+     * String attribute of a constraint, resolvable with itself as code and default message
+     * (like the bean validation adapter does, so that it is not mistaken for a message code)
+     */
+    private static final class ResolvableAttribute implements MessageSourceResolvable, Serializable {
+
+        private final String value;
+
+        ResolvableAttribute(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String[] getCodes() {
+            return new String[]{value};
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return null;
+        }
+
+        @Override
+        public String getDefaultMessage() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
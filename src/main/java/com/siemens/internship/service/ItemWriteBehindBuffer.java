@@ -0,0 +1,152 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.WriteBehindProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines item saves coming from many callers into micro-batches.
+ * A background thread flushes a batch when it reaches the configured size or deadline,
+ * persisting it in a single transaction (so Hibernate can use JDBC batch inserts),
+ * and completes the future of each caller with its saved item.
+ * Does nothing unless "items.write-behind.enabled" is set.
+ */
+@Component
+public class ItemWriteBehindBuffer implements AutoCloseable {
+
+    /**
+     * @param id the id the item was submitted with
+     * @param version the version the item was submitted with
+     */
+    private record PendingWrite(Item item, Long id, Long version, CompletableFuture<Item> result) {
+    }
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread flusher;
+    private volatile boolean running;
+
+    public ItemWriteBehindBuffer(ItemRepository itemRepository, TransactionTemplate transactionTemplate,
+                                 WriteBehindProperties properties) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        this.flusher = new Thread(this::runFlusher, "item-write-behind");
+        this.flusher.setDaemon(true);
+
+        if (properties.isEnabled()) {
+            running = true;
+            flusher.start();
+        }
+    }
+
+    /**
+     * @return true if saves should go through this buffer
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queues an item to be saved with the next batch
+     * @param item item to be saved/updated
+     * @return future completed with the saved item (and its generated id) once its batch is flushed
+     */
+    public CompletableFuture<Item> submit(Item item) {
+        CompletableFuture<Item> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new RejectedExecutionException("Write-behind buffer is not running"));
+        }
+        else if (!queue.offer(new PendingWrite(item, item.getId(), item.getVersion(), result))) {
+            result.completeExceptionally(new RejectedExecutionException("Write-behind queue is full"));
+        }
+        return result;
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>(properties.getBatchSize());
+
+        // keeps flushing after close() until the queue is drained
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getMaxDelay().toNanos();
+                while (batch.size() < properties.getBatchSize()) {
+                    queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.getBatchSize() || remaining <= 0) break;
+
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break; // deadline reached
+                    batch.add(next);
+                }
+            }
+            catch (InterruptedException e) {
+                running = false; // stop waiting for new saves, the queued ones are still flushed
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        List<Item> items = batch.stream().map(PendingWrite::item).toList();
+        try {
+            List<Item> saved = transactionTemplate.execute(status -> itemRepository.saveAll(items));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        }
+        catch (RuntimeException batchFailure) {
+            // one invalid item must not fail the whole batch, so each item is retried on its own
+            for (PendingWrite write : batch) {
+                // the rolled back batch may have assigned an id and version to a new item,
+                // which would make the retry merge it with a row that doesn't exist
+                write.item().setId(write.id());
+                write.item().setVersion(write.version());
+                try {
+                    write.result().complete(transactionTemplate.execute(status -> itemRepository.save(write.item())));
+                }
+                catch (RuntimeException e) {
+                    write.result().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting saves and waits for the queued ones to be flushed
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (!running) return;
+
+        running = false;
+        flusher.join();
+
+        // saves queued while the flusher was exiting
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.result().completeExceptionally(new RejectedExecutionException("Write-behind buffer is closed"));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Last processing stage, the only one by default: sets the status of the items to "PROCESSED"
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class MarkProcessedProcessor implements ItemProcessor {
+
+    @Override
+    public String name() {
+        return "mark-processed";
+    }
+
+    @Override
+    public void process(List<Item> items) {
+        for (Item item : items) {
+            item.setStatus(ItemService.PROCESSED_STATUS);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.siemens.internship.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically claims and processes the free partitions of the partitioned runs on this node,
+ * and removes the runs finished for longer than the retention.
+ * Enabled with "items.processing.partitions.worker-enabled=true",
+ * never started without a web server (e.g. when running the snapshot command).
+ */
+@Component
+@RequiredArgsConstructor(onConstructor_ = {@Autowired})
+@ConditionalOnWebApplication
+@ConditionalOnProperty(prefix = "items.processing.partitions", name = "worker-enabled", havingValue = "true")
+public class PartitionWorker {
+    private final PartitionedProcessingService partitionedProcessingService;
+
+    @Scheduled(fixedDelayString = "${items.processing.partitions.poll-interval:PT5S}")
+    public void processAvailablePartitions() {
+        partitionedProcessingService.processAvailablePartitions();
+        partitionedProcessingService.removeFinishedRuns();
+    }
+}
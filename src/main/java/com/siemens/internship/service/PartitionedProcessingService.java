@@ -0,0 +1,292 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemProcessingProperties;
+import com.siemens.internship.model.ItemStatusChange;
+import com.siemens.internship.model.PartitionStatus;
+import com.siemens.internship.model.PartitionedRunStatus;
+import com.siemens.internship.model.ProcessingPartition;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for processing items across several nodes sharing the same database.
+ * A run splits the existing ids into partitions of the same number of ids, stored in the database; every node claims
+ * free partitions by leasing them and processes them with a set-based update,
+ * so each partition is handled by a single node and the work is spread over all nodes.
+ * While a partition is processed, its lease is extended every "items.processing.partitions.lease-renew-interval"
+ * from a thread of its own, so a long partition isn't taken over by another node.
+ * Like the bulk processing, it only sets the status: the items don't go through the processing stages.
+ */
+@Slf4j
+@Service
+public class PartitionedProcessingService implements AutoCloseable {
+    private static final int CLAIM_CANDIDATES = 5;
+
+    private final ProcessingPartitionRepository partitionRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemCache itemCache;
+    private final ItemStatusCounters statusCounters;
+    private final ItemIndex itemIndex;
+    private final ItemChangeFeed changeFeed;
+    private final DeadLetterService deadLetterService;
+    private final ItemProcessingProperties.Partitions properties;
+    private final String nodeId;
+    private final ScheduledExecutorService leaseRenewal;
+
+    public PartitionedProcessingService(ProcessingPartitionRepository partitionRepository,
+                                        ItemRepository itemRepository, TransactionTemplate transactionTemplate,
+                                        ItemCache itemCache, ItemStatusCounters statusCounters, ItemIndex itemIndex,
+                                        ItemChangeFeed changeFeed, DeadLetterService deadLetterService,
+                                        ItemProcessingProperties properties) {
+        this.partitionRepository = partitionRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.itemCache = itemCache;
+        this.statusCounters = statusCounters;
+        this.itemIndex = itemIndex;
+        this.changeFeed = changeFeed;
+        this.deadLetterService = deadLetterService;
+        this.properties = properties.getPartitions();
+        this.nodeId = this.properties.getNodeId() != null ? this.properties.getNodeId() : UUID.randomUUID().toString();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("partition-lease-");
+        threadFactory.setDaemon(true);
+        this.leaseRenewal = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Creates a new run with the configured partition size
+     * @return the progress of the new run
+     */
+    public PartitionedRunStatus startRun() {
+        return startRun(properties.getSize());
+    }
+
+    /**
+     * Creates a new run, splitting the current ids into partitions to be claimed by the nodes.
+     * The bounds of the partitions are existing ids found by walking the id index (keyset boundaries),
+     * so every partition but the last holds partitionSize items, however sparse the ids are
+     * @param partitionSize number of ids per partition
+     * @return the progress of the new run
+     */
+    public PartitionedRunStatus startRun(int partitionSize) {
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("Partition size must be positive");
+        }
+
+        String runId = UUID.randomUUID().toString();
+        Long maxId = itemRepository.findMaxId(); // items created after this are left to the next run
+
+        List<ProcessingPartition> partitions = new ArrayList<>();
+        if (maxId != null) {
+            long afterId = Long.MIN_VALUE;
+            Long fromId;
+            while ((fromId = itemRepository.findIdAfter(afterId, 0)) != null && fromId <= maxId) {
+                Long toId = itemRepository.findIdAfter(afterId, partitionSize - 1);
+                if (toId == null || toId > maxId) toId = maxId; // the last, partial partition
+                partitions.add(new ProcessingPartition(runId, fromId, toId));
+                afterId = toId;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> partitionRepository.saveAll(partitions));
+
+        return new PartitionedRunStatus(runId, partitions.size(), 0, 0, 0);
+    }
+
+    /**
+     * @param runId the run's id
+     * @return Optional of the run's progress, empty Optional if the run doesn't exist
+     */
+    public Optional<PartitionedRunStatus> getRun(String runId) {
+        List<ProcessingPartition> partitions = partitionRepository.findByRunId(runId);
+        if (partitions.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long pending = 0, claimed = 0, done = 0, processed = 0;
+        for (ProcessingPartition partition : partitions) {
+            switch (partition.getStatus()) {
+                case PENDING -> pending++;
+                case CLAIMED -> claimed++;
+                case DONE -> done++;
+            }
+            processed += partition.getProcessed();
+        }
+        return Optional.of(new PartitionedRunStatus(runId, pending, claimed, done, processed));
+    }
+
+    /**
+     * Claims and processes partitions until none is left to claim
+     * @return number of partitions processed by this node
+     */
+    public int processAvailablePartitions() {
+        int processed = 0;
+        Optional<ProcessingPartition> partition;
+        while ((partition = claimNext()).isPresent()) {
+            if (process(partition.get())) processed++;
+        }
+        return processed;
+    }
+
+    /**
+     * Leases the next free partition (pending, or claimed by a node whose lease expired) to this node
+     * @return Optional of the claimed partition, empty Optional if there is nothing to claim
+     */
+    public Optional<ProcessingPartition> claimNext() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            Instant expiresAt = now.plus(properties.getLeaseDuration());
+
+            for (ProcessingPartition candidate : partitionRepository.findClaimable(now, Limit.of(CLAIM_CANDIDATES))) {
+                // the conditional update makes the claim safe even where the lock doesn't skip locked rows
+                if (partitionRepository.claim(candidate.getId(), nodeId, expiresAt, now) == 1) {
+                    candidate.setStatus(PartitionStatus.CLAIMED);
+                    candidate.setOwner(nodeId);
+                    candidate.setLeaseExpiresAt(expiresAt);
+                    return Optional.of(candidate);
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * Processes a claimed partition with a single set-based update and marks it as done, in one transaction.
+     * With the change feed enabled, the changed rows are read from the update statement itself and recorded
+     * in the same transaction, so the recorded changes are exactly the updated rows.
+     * The lease is extended while the partition is processed.
+     * If this node lost the lease in the meantime, nothing is changed and the other node does the work
+     * @param partition a partition claimed by this node
+     * @return true if the partition was processed by this node
+     */
+    public boolean process(ProcessingPartition partition) {
+        long interval = properties.getLeaseRenewInterval().toMillis();
+        ScheduledFuture<?> renewal = leaseRenewal.scheduleWithFixedDelay(() -> renewLease(partition),
+                interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            return processLeased(partition);
+        }
+        finally {
+            renewal.cancel(false);
+        }
+    }
+
+    private boolean processLeased(ProcessingPartition partition) {
+        List<ItemStatusChange> changed = new ArrayList<>();
+        Boolean completed = transactionTemplate.execute(status -> {
+            int updated;
+            if (changeFeed.isEnabled()) {
+                changed.addAll(itemRepository.updateStatusInRangeReturningChanges(partition.getFromId(),
+                        partition.getToId(), ItemService.PROCESSED_STATUS));
+                changeFeed.statusChanged(changed, ItemService.PROCESSED_STATUS); // dropped if rolled back
+                updated = changed.size();
+            }
+            else {
+                updated = itemRepository.updateStatusInRange(partition.getFromId(), partition.getToId(),
+                        ItemService.PROCESSED_STATUS);
+            }
+            deadLetterService.removeInRange(partition.getFromId(), partition.getToId());
+
+            if (partitionRepository.complete(partition.getId(), nodeId, updated) == 0) {
+                log.debug("Lease of partition {} was lost, leaving it to its new owner", partition.getId());
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(completed)) {
+            itemCache.invalidateAll(); // the updated rows aren't known one by one
+            if (changeFeed.isEnabled()) {
+                changed.forEach(change -> {
+                    statusCounters.statusChanged(change.previousStatus(), ItemService.PROCESSED_STATUS);
+                    itemIndex.statusChanged(change.id(), ItemService.PROCESSED_STATUS);
+                });
+            }
+            else {
+                statusCounters.markStale();
+                itemIndex.markStale();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extends the lease of a partition being processed by this node, in a transaction of its own
+     * @param partition the partition
+     */
+    private void renewLease(ProcessingPartition partition) {
+        try {
+            Instant expiresAt = Instant.now().plus(properties.getLeaseDuration());
+            Integer renewed = transactionTemplate.execute(status ->
+                    partitionRepository.renew(partition.getId(), nodeId, expiresAt));
+            if (renewed != null && renewed == 1) {
+                partition.setLeaseExpiresAt(expiresAt);
+            }
+            else {
+                log.debug("Lease of partition {} was lost or the partition is done", partition.getId());
+            }
+        }
+        catch (RuntimeException e) {
+            log.warn("Could not renew the lease of partition {}", partition.getId(), e);
+        }
+    }
+
+    /**
+     * Removes the runs finished for longer than "items.processing.partitions.finished-run-retention",
+     * their progress can't be read anymore
+     * @return number of partitions removed
+     */
+    public int removeFinishedRuns() {
+        return removeFinishedRuns(Instant.now().minus(properties.getFinishedRunRetention()));
+    }
+
+    /**
+     * Removes the runs whose partitions are all done, if the last lease of the run expired before the given time
+     * @param before the time the runs must have finished by
+     * @return number of partitions removed
+     */
+    public int removeFinishedRuns(Instant before) {
+        Integer removed = transactionTemplate.execute(status -> partitionRepository.deleteFinishedRuns(before));
+        if (removed != null && removed > 0) log.debug("Removed {} partitions of finished runs", removed);
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * @return whether this node claims and processes partitions
+     */
+    public boolean isWorkerEnabled() {
+        return properties.isWorkerEnabled();
+    }
+
+    /**
+     * @return the id identifying this node in the leases
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Stops renewing the leases, the partitions being processed are left to other nodes once their leases expire
+     */
+    @Override
+    public void close() {
+        leaseRenewal.shutdownNow();
+    }
+}
@@ -0,0 +1,56 @@
+package com.siemens.internship.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lets at most one processing run of each scope (e.g. all items, or only the unprocessed ones) be in flight:
+ * a caller asking for a run while one of the same scope is in progress joins that run instead of starting another,
+ * so repeated requests can't pile up overlapping full-table runs on the processing executor
+ */
+@Slf4j
+@Component
+public class ProcessingAdmission {
+
+    private final Map<String, Object> runs = new HashMap<>();
+
+    /**
+     * Starts a run of the scope, unless one is in progress
+     * @param scope what the run processes
+     * @param start starts the run and returns a handle on it
+     * @param completion the future of the run's completion, given its handle
+     * @return the handle of the started run, or of the run in progress
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T admit(String scope, Supplier<T> start, Function<T, CompletableFuture<?>> completion) {
+        T running = (T) runs.get(scope);
+        if (running != null) {
+            log.debug("Joining the processing run in progress for {}", scope);
+            return running;
+        }
+
+        T run = start.get();
+        runs.put(scope, run);
+        // runs right away (under the lock, so after the put) if the run is already over
+        completion.apply(run).whenComplete((result, e) -> remove(scope, run));
+        return run;
+    }
+
+    /**
+     * @param scope what the run processes
+     * @return true if a run of the scope is in progress
+     */
+    public synchronized boolean isRunning(String scope) {
+        return runs.containsKey(scope);
+    }
+
+    private synchronized void remove(String scope, Object run) {
+        runs.remove(scope, run);
+    }
+}
@@ -0,0 +1,110 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.ProcessingJobState;
+import com.siemens.internship.model.ProcessingJobStatus;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a single item processing job.
+ * Counters are updated concurrently by the processing tasks.
+ */
+@Getter
+public class ProcessingJob {
+    private final String id;
+    private final Instant createdAt = Instant.now();
+    private volatile ProcessingJobState state = ProcessingJobState.PENDING;
+    private volatile long total;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile boolean cancelRequested;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong notFound = new AtomicLong();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>(); // completed once the job finished
+
+    public ProcessingJob(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Marks the job as running
+     * @param total number of items to be processed
+     */
+    public void start(long total) {
+        this.total = total;
+        this.startedAt = Instant.now();
+        this.state = ProcessingJobState.RUNNING;
+    }
+
+    public void recordSuccess() {
+        processed.incrementAndGet();
+    }
+
+    public void recordFailure() {
+        failed.incrementAndGet();
+    }
+
+    /**
+     * Records an item that was deleted before it could be processed, which isn't a failure
+     */
+    public void recordNotFound() {
+        notFound.incrementAndGet();
+    }
+
+    /**
+     * Asks the job to stop, items that weren't picked up yet are skipped
+     * @return false if the job had already finished
+     */
+    public boolean cancel() {
+        if (state.isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * Marks the job as finished, as cancelled if a cancellation was requested
+     */
+    public void complete() {
+        finish(cancelRequested ? ProcessingJobState.CANCELLED : ProcessingJobState.COMPLETED);
+    }
+
+    /**
+     * Marks the job as failed (the job couldn't run at all)
+     */
+    public void fail() {
+        finish(ProcessingJobState.FAILED);
+    }
+
+    private void finish(ProcessingJobState finalState) {
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+        completion.complete(null);
+    }
+
+    /**
+     * @return a consistent snapshot of the job's progress
+     */
+    public ProcessingJobStatus toStatus() {
+        long processedCount = processed.get();
+        long failedCount = failed.get();
+        long notFoundCount = notFound.get();
+        long handled = processedCount + failedCount + notFoundCount;
+
+        double throughput = 0;
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            throughput = handled * 1000.0 / millis;
+        }
+
+        return new ProcessingJobStatus(id, state, total, processedCount, failedCount,
+                notFoundCount, Math.max(0, total - handled), throughput, startedAt, finishedAt);
+    }
+}
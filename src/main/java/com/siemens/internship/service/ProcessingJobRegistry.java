@@ -0,0 +1,72 @@
+package com.siemens.internship.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-memory registry of processing jobs.
+ * Finished jobs are evicted once they are older than the configured TTL,
+ * or earlier (oldest first) when the registry is full.
+ * Running jobs are never evicted.
+ */
+@Component
+public class ProcessingJobRegistry {
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+    private final int maxJobs;
+    private final Duration ttl;
+
+    public ProcessingJobRegistry(@Value("${items.processing.jobs.max-entries:100}") int maxJobs,
+                                 @Value("${items.processing.jobs.ttl:PT1H}") Duration ttl) {
+        this.maxJobs = maxJobs;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates and registers a new job
+     * @return the new job
+     * @throws IllegalStateException if the registry is full of running jobs
+     */
+    public synchronized ProcessingJob register() {
+        evictExpired();
+        if (jobs.size() >= maxJobs) {
+            evictOldestFinished();
+        }
+        if (jobs.size() >= maxJobs) {
+            throw new IllegalStateException("Too many processing jobs are running");
+        }
+
+        ProcessingJob job = new ProcessingJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Searches for a job by its id
+     * @param jobId the job's id
+     * @return Optional of the job, empty Optional if it doesn't exist or was evicted
+     */
+    public Optional<ProcessingJob> find(String jobId) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void evictExpired() {
+        Instant threshold = Instant.now().minus(ttl);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private void evictOldestFinished() {
+        jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .min(Comparator.comparing(ProcessingJob::getFinishedAt))
+                .ifPresent(job -> jobs.remove(job.getId()));
+    }
+}
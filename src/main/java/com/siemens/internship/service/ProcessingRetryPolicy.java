@@ -0,0 +1,56 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ItemProcessingProperties;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed processing attempt is retried, and after how long.
+ * Only transient database errors (lock conflicts, timeouts, lost connections...) are retried,
+ * with an exponential backoff configured by "items.processing.retry.*"
+ */
+@Component
+public class ProcessingRetryPolicy {
+
+    private final ItemProcessingProperties.Retry properties;
+
+    public ProcessingRetryPolicy(ItemProcessingProperties properties) {
+        this.properties = properties.getRetry();
+    }
+
+    /**
+     * @param failure the exception the attempt failed with
+     * @param attempt number of the failed attempt, starting at 1
+     * @return true if another attempt should be made
+     */
+    public boolean shouldRetry(Throwable failure, int attempt) {
+        return attempt < properties.getMaxAttempts() && isTransient(failure);
+    }
+
+    /**
+     * @param attempt number of the failed attempt, starting at 1
+     * @return how long to wait before the next attempt: the initial backoff multiplied for each failed attempt,
+     *      capped, with a random part so that items failing together aren't retried together
+     */
+    public Duration backoff(int attempt) {
+        double backoff = properties.getInitialBackoff().toMillis() * Math.pow(properties.getMultiplier(), attempt - 1);
+        long capped = (long) Math.min(backoff, properties.getMaxBackoff().toMillis());
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause()) {
+            if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                    || e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
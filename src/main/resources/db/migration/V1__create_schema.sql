@@ -0,0 +1,43 @@
+-- Schema of the items and of the processing bookkeeping tables.
+-- Column sizes follow the @Size constraints of the entities.
+
+CREATE SEQUENCE items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE items (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL,
+    description VARCHAR(255) NOT NULL,
+    status      VARCHAR(50)  NOT NULL,
+    email       VARCHAR(254) NOT NULL,
+    version     BIGINT
+);
+
+-- serves lookups by status as well as keyset scans of the items with (or without) a status
+CREATE INDEX idx_items_status_id ON items (status, id);
+CREATE INDEX idx_items_email ON items (email);
+
+CREATE SEQUENCE processing_partitions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE processing_partitions (
+    id               BIGINT      NOT NULL PRIMARY KEY,
+    run_id           VARCHAR(36),
+    from_id          BIGINT,
+    to_id            BIGINT,
+    status           VARCHAR(16),
+    owner            VARCHAR(255),
+    lease_expires_at TIMESTAMP(6) WITH TIME ZONE,
+    processed        BIGINT      NOT NULL
+);
+
+CREATE INDEX idx_processing_partitions_run_id ON processing_partitions (run_id);
+CREATE INDEX idx_processing_partitions_status ON processing_partitions (status, lease_expires_at);
+
+CREATE TABLE processing_dead_letters (
+    item_id        BIGINT        NOT NULL PRIMARY KEY,
+    exception_type VARCHAR(255),
+    reason         VARCHAR(1000),
+    attempts       INTEGER       NOT NULL,
+    failed_at      TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX idx_processing_dead_letters_failed_at ON processing_dead_letters (failed_at);
@@ -0,0 +1,2 @@
+-- serves the name prefix filter and the name-sorted keyset paging of the item search
+CREATE INDEX idx_items_name_id ON items (name, id);
@@ -0,0 +1,2 @@
+-- time of the last modification of each item, used as the Last-Modified of the item resources
+ALTER TABLE items ADD COLUMN updated_at TIMESTAMP(6) WITH TIME ZONE;
@@ -0,0 +1,13 @@
+-- outbox of the changes made to the items, in the order of their sequence number,
+-- read by the change feed consumers catching up with changes no longer held in memory
+CREATE TABLE item_changes (
+    seq             BIGINT       NOT NULL PRIMARY KEY,
+    change_type     VARCHAR(16)  NOT NULL,
+    item_id         BIGINT       NOT NULL,
+    status          VARCHAR(50),
+    previous_status VARCHAR(50),
+    changed_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- serves the removal of the changes older than the retention
+CREATE INDEX idx_item_changes_changed_at ON item_changes (changed_at);
@@ -0,0 +1,4 @@
+-- version each item had once it was last processed, so that incremental runs also pick up
+-- the items modified since then; the items already processed count as processed at their current version
+ALTER TABLE items ADD COLUMN processed_version BIGINT;
+UPDATE items SET processed_version = version WHERE status = 'PROCESSED';
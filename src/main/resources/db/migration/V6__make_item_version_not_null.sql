@@ -0,0 +1,5 @@
+-- rows written before the version was maintained by every write count as version 0,
+-- so that each item has a version to compare and to use as ETag
+UPDATE items SET version = 0 WHERE version IS NULL;
+ALTER TABLE items ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE items ALTER COLUMN version SET NOT NULL;
@@ -0,0 +1,10 @@
+-- marks the items never processed or modified since they were last processed: set by every write,
+-- cleared by processing. Unlike comparing processed_version with version, it is served by an index,
+-- so incremental runs only read the items that need processing
+ALTER TABLE items ADD COLUMN needs_processing BOOLEAN DEFAULT TRUE NOT NULL;
+-- the rows processed before V5 that had no version yet got no processed version there (V6 set their version to 0)
+UPDATE items SET needs_processing = FALSE
+WHERE processed_version >= version OR (processed_version IS NULL AND version = 0 AND status = 'PROCESSED');
+ALTER TABLE items DROP COLUMN processed_version;
+
+CREATE INDEX idx_items_needs_processing_id ON items (needs_processing, id);
@@ -0,0 +1,9 @@
+-- lease of the single node recording the item changes: the feed numbers the changes in memory,
+-- so a second node recording them would reuse the same sequence numbers
+CREATE TABLE item_change_feed_writer (
+    id               INTEGER      NOT NULL PRIMARY KEY,
+    owner            VARCHAR(255),
+    lease_expires_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+INSERT INTO item_change_feed_writer (id, owner, lease_expires_at) VALUES (1, NULL, NULL);
@@ -0,0 +1,113 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemProcessingProperties;
+import com.siemens.internship.model.BulkProcessingResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatusChange;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+/**
+ * Tests for the set-based bulk processing in ItemService.
+ */
+@SpringBootTest
+public class BulkProcessingTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemProcessingProperties processingProperties;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com"));
+        }
+        itemRepository.save(new Item(null, "item6", "description6", "PROCESSED", "email6@example.com"));
+    }
+
+    @Test
+    public void testProcessItemsInBulk(){
+        BulkProcessingResult result = itemService.processItemsInBulk(2, false);
+
+        assertEquals(3, result.chunks());
+        assertEquals(5, result.updated()); // the already processed item is not counted
+        assertTrue(result.changed().isEmpty());
+        assertTrue(itemRepository.findAll().stream()
+                .allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    public void testProcessItemsInBulkWithChangedRows(){
+        BulkProcessingResult result = itemService.processItemsInBulk(100, true);
+
+        assertEquals(1, result.chunks());
+        assertEquals(5, result.updated());
+        assertEquals(5, result.changed().size());
+        assertFalse(result.changedTruncated());
+        assertTrue(result.changed().stream()
+                .allMatch(change -> "PENDING".equals(change.previousStatus())));
+        assertEquals(result.changed().stream().map(ItemStatusChange::id).sorted().toList(),
+                result.changed().stream().map(ItemStatusChange::id).toList());
+
+        // second run has nothing left to change
+        assertEquals(0, itemService.processItemsInBulk(100, true).updated());
+    }
+
+    @Test
+    public void testProcessItemsInBulkChangedRowsCapped(){
+        int maxChanged = processingProperties.getBulkMaxChanged();
+        try {
+            processingProperties.setBulkMaxChanged(3);
+            BulkProcessingResult result = itemService.processItemsInBulk(2, true);
+
+            // every row is updated and counted, only the first ones are listed
+            assertEquals(5, result.updated());
+            assertEquals(3, result.changed().size());
+            assertTrue(result.changedTruncated());
+            assertTrue(itemRepository.findAll().stream()
+                    .allMatch(item -> "PROCESSED".equals(item.getStatus())));
+        }
+        finally {
+            processingProperties.setBulkMaxChanged(maxChanged);
+        }
+    }
+
+    @Test
+    public void testProcessItemsInBulkSparseIds(){
+        List<Long> ids = itemRepository.findAllIds().stream().sorted().toList();
+        itemRepository.deleteAllById(ids.subList(1, 4)); // leaves a gap in the ids
+
+        // the chunks follow the remaining ids, not the id range
+        BulkProcessingResult result = itemService.processItemsInBulk(2, false);
+        assertEquals(2, result.chunks());
+        assertEquals(2, result.updated());
+    }
+
+    @Test
+    public void testProcessItemsInBulkEmptyTable(){
+        itemRepository.deleteAll();
+
+        BulkProcessingResult result = itemService.processItemsInBulk(10, false);
+        assertEquals(0, result.chunks());
+        assertEquals(0, result.updated());
+    }
+
+    @Test
+    public void testProcessItemsInBulkInvalidChunkSize(){
+        assertThrows(IllegalArgumentException.class, () -> itemService.processItemsInBulk(0, false));
+    }
+}
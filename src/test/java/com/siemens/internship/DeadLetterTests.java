@@ -0,0 +1,168 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.DeadLetter;
+import com.siemens.internship.model.DeadLetterReplayResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ProcessingJobState;
+import com.siemens.internship.model.ProcessingJobStatus;
+import com.siemens.internship.repository.DeadLetterRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.Limit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tests for the retries, timeouts and dead letters of the item processing.
+ */
+@SpringBootTest(properties = {"items.processing.item-timeout=1s", "items.processing.retry.initial-backoff=10ms",
+        "items.processing.max-concurrency=2", "items.processing.max-in-flight=4"})
+public class DeadLetterTests {
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private DeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    private Item item;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+        deadLetterRepository.deleteAll();
+
+        item = itemRepository.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "item2", "description2", "PENDING", "email2@example.com"));
+    }
+
+    @Test
+    public void testTransientFailureIsRetried() throws Exception {
+        Mockito.doThrow(new TransientDataAccessResourceException("connection reset"))
+                .doReturn(Optional.of(item))
+                .when(itemRepository)
+                .findById(item.getId());
+
+        List<Item> items = itemService.processItemsAsync().get();
+        assertEquals(2, items.size());
+        assertEquals(0, deadLetterRepository.count());
+        Mockito.verify(itemRepository, Mockito.times(2)).findById(item.getId());
+    }
+
+    @Test
+    public void testPermanentFailureIsDeadLetteredAndReplayed() throws Exception {
+        Mockito.doThrow(new IllegalStateException("broken"))
+                .when(itemRepository)
+                .save(Mockito.argThat(saved -> item.getId().equals(saved.getId())));
+
+        assertEquals(1, itemService.processItemsAsync().get().size());
+        DeadLetter deadLetter = deadLetterRepository.findById(item.getId()).orElseThrow();
+        assertEquals(IllegalStateException.class.getName(), deadLetter.getExceptionType());
+        assertEquals("broken", deadLetter.getReason());
+        assertEquals(1, deadLetter.getAttempts()); // not retried
+
+        Mockito.reset(itemRepository);
+        DeadLetterReplayResult result = itemService.replayDeadLetters(100);
+        assertEquals(new DeadLetterReplayResult(1, 1, 0, 0), result);
+        assertEquals(0, deadLetterRepository.count());
+        assertEquals("PROCESSED", itemRepository.findById(item.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testProcessedItemLosesDeadLetter() throws Exception {
+        deadLetterRepository.save(new DeadLetter(item.getId(), "java.lang.IllegalStateException", "broken", 1,
+                java.time.Instant.now()));
+
+        // a later successful run clears the earlier failure, without a replay
+        assertEquals(2, itemService.processItemsAsync().get().size());
+        assertFalse(deadLetterRepository.existsById(item.getId()));
+    }
+
+    @Test
+    public void testStuckItemTimesOut() throws Exception {
+        Mockito.doAnswer(invocation -> {
+                    Thread.sleep(3000);
+                    return Optional.empty();
+                })
+                .when(itemRepository)
+                .findById(item.getId());
+
+        long start = System.nanoTime();
+        List<Item> items = itemService.processItemsAsync().get();
+        assertTrue(System.nanoTime() - start < 2_500_000_000L, "the stuck item should be given up at the timeout");
+        assertEquals(1, items.size());
+        assertEquals("java.util.concurrent.TimeoutException",
+                deadLetterRepository.findById(item.getId()).orElseThrow().getExceptionType());
+    }
+
+    @Test
+    public void testQueuedItemsDontTimeOut() throws Exception {
+        Map<Long, Item> items = new HashMap<>();
+        for (Item saved : itemRepository.findAll()) {
+            items.put(saved.getId(), saved);
+        }
+        for (int i = 0; i < 30; i++) {
+            Item saved = itemRepository.save(
+                    new Item(null, "queued" + i, "description", "PENDING", "queued" + i + "@example.com"));
+            items.put(saved.getId(), saved);
+        }
+        // 32 items of 100ms each on 2 permits take well over the 1s item timeout
+        Mockito.doAnswer(invocation -> {
+                    Thread.sleep(100);
+                    return Optional.ofNullable(items.get(invocation.<Long>getArgument(0)));
+                })
+                .when(itemRepository)
+                .findById(Mockito.anyLong());
+
+        assertEquals(32, itemService.processItemsAsync().get().size());
+        assertEquals(0, deadLetterRepository.count());
+        assertEquals(32, itemRepository.findIdsByStatus("PROCESSED", Long.MIN_VALUE, Limit.of(100)).size());
+    }
+
+    @Test
+    public void testReplayRemovesDeletedItems(){
+        deadLetterRepository.save(new DeadLetter(-1L, "java.lang.IllegalStateException", "broken", 1, java.time.Instant.now()));
+
+        assertEquals(new DeadLetterReplayResult(0, 0, 0, 1), itemService.replayDeadLetters(100));
+        assertEquals(0, deadLetterRepository.count());
+    }
+
+    @Test
+    public void testJobCountsDeletedItemsApart() throws Exception {
+        Item deleted = itemRepository.save(new Item(null, "item3", "description3", "PENDING", "email3@example.com"));
+        Mockito.doReturn(Optional.empty()).when(itemRepository).findById(deleted.getId());
+        Mockito.doThrow(new IllegalStateException("broken"))
+                .when(itemRepository)
+                .save(Mockito.argThat(saved -> item.getId().equals(saved.getId())));
+
+        String jobId = itemService.startProcessingJob().jobId();
+        ProcessingJobStatus status = itemService.getProcessingJob(jobId).orElseThrow();
+        for (int i = 0; i < 100 && !status.state().isFinished(); i++) {
+            Thread.sleep(50);
+            status = itemService.getProcessingJob(jobId).orElseThrow();
+        }
+
+        assertEquals(ProcessingJobState.COMPLETED, status.state());
+        assertEquals(1, status.processed());
+        assertEquals(1, status.failed());
+        assertEquals(1, status.notFound()); // not a failure
+        assertEquals(0, status.remaining());
+        assertEquals(1, deadLetterRepository.count());
+    }
+}
@@ -0,0 +1,176 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemAdmissionProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ProcessingJobStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for the admission control: joined processing runs, per-client rate limits and load shedding.
+ * Clients are told apart by a header and get 2 requests at once, then 1 every 10 seconds.
+ */
+@SpringBootTest(properties = {"items.admission.rate-limit.client-header=X-Client-Id",
+        "items.admission.rate-limit.requests-per-second=0.1", "items.admission.rate-limit.burst=2"})
+@AutoConfigureMockMvc
+public class ItemAdmissionTests {
+
+    private static final String ITEM_JSON =
+            "{\"name\":\"item\",\"description\":\"description\",\"status\":\"PENDING\",\"email\":\"email@example.com\"}";
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemAdmissionProperties admissionProperties;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void addItems() {
+        itemRepository.deleteAll();
+        itemRepository.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "item2", "description2", "PENDING", "email2@example.com"));
+        Mockito.clearInvocations(itemRepository);
+    }
+
+    @Test
+    public void testConcurrentRunsAreJoined() throws Exception {
+        List<Long> ids = itemRepository.findAllIds();
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await(); // keeps the first run in progress
+            return ids;
+        }).when(itemRepository).findAllIds();
+
+        try {
+            CompletableFuture<List<Item>> first = itemService.processItemsShared();
+            CompletableFuture<List<Item>> second = itemService.processItemsShared();
+            release.countDown();
+
+            assertEquals(2, first.get().size());
+            assertEquals(first.get(), second.get());
+            Mockito.verify(itemRepository, Mockito.times(2)).findAllIds(); // with the call above
+
+            // a run starting after the previous one completed is a new run
+            assertEquals(2, itemService.processItemsShared().get().size());
+            Mockito.verify(itemRepository, Mockito.times(3)).findAllIds();
+        }
+        finally {
+            Mockito.reset(itemRepository);
+        }
+    }
+
+    @Test
+    public void testConcurrentJobsAreJoined() throws Exception {
+        List<Long> ids = itemRepository.findAllIds();
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await();
+            return ids;
+        }).when(itemRepository).findAllIds();
+
+        try {
+            ProcessingJobStatus first = itemService.startProcessingJob(false);
+            ProcessingJobStatus second = itemService.startProcessingJob(false);
+            ProcessingJobStatus incremental = itemService.startProcessingJob(true);
+
+            assertEquals(first.jobId(), second.jobId());
+            assertNotEquals(first.jobId(), incremental.jobId());
+
+            release.countDown();
+            awaitFinished(first.jobId());
+            awaitFinished(incremental.jobId());
+        }
+        finally {
+            release.countDown();
+            Mockito.reset(itemRepository);
+        }
+    }
+
+    private void awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (itemService.getProcessingJob(jobId).orElseThrow().state().isFinished()) return;
+            Thread.sleep(50);
+        }
+        fail("Job " + jobId + " didn't finish");
+    }
+
+    @Test
+    public void testRateLimitPerClient() {
+        try {
+            mockMvc.perform(createItem("client-a")).andExpect(status().isCreated());
+            mockMvc.perform(createItem("client-a")).andExpect(status().isCreated());
+            mockMvc.perform(createItem("client-a"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "10"));
+
+            // other clients and reads aren't limited
+            mockMvc.perform(createItem("client-b")).andExpect(status().isCreated());
+            for (int i = 0; i < 5; i++) {
+                mockMvc.perform(get("/api/items").header("X-Client-Id", "client-a")).andExpect(status().isOk());
+            }
+        }
+        catch (Exception e) {
+            fail("TestRateLimitPerClient failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLoadShedding() {
+        ItemAdmissionProperties.Shedding shedding = admissionProperties.getShedding();
+        int maxPendingConnections = shedding.getMaxPendingConnections();
+        int maxQueuedTasks = shedding.getMaxQueuedTasks();
+        try {
+            // only processing requests depend on the queued processing tasks
+            shedding.setMaxQueuedTasks(-1);
+            mockMvc.perform(post("/api/items/process").header("X-Client-Id", "client-c"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "5"));
+            mockMvc.perform(createItem("client-c")).andExpect(status().isCreated());
+
+            shedding.setMaxPendingConnections(-1);
+            mockMvc.perform(createItem("client-d"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "5"));
+            mockMvc.perform(get("/api/items")).andExpect(status().isOk());
+        }
+        catch (Exception e) {
+            fail("TestLoadShedding failed: " + e.getMessage());
+        }
+        finally {
+            shedding.setMaxPendingConnections(maxPendingConnections);
+            shedding.setMaxQueuedTasks(maxQueuedTasks);
+        }
+    }
+
+    private static MockHttpServletRequestBuilder createItem(String client) {
+        return post("/api/items")
+                .header("X-Client-Id", client)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ITEM_JSON);
+    }
+}
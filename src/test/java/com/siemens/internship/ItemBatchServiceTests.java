@@ -0,0 +1,64 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.BatchResult;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Tests for saving items in bulk when part of a chunk can't be saved.
+ */
+@SpringBootTest
+public class ItemBatchServiceTests {
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemBatchService itemBatchService;
+
+    @BeforeEach
+    public void clearRepo(){
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    public void testFailingItemDoesNotFailChunk(){
+        Item first = itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        Item failing = itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+        doThrow(new DataIntegrityViolationException("constraint violated"))
+                .when(itemRepository).update(eq(failing.getId()), any(Item.class));
+
+        List<Item> items = List.of(
+                new Item(first.getId(), "New A", "Description A", "PENDING", "a@example.com"),
+                new Item(failing.getId(), "New B", "Description B", "PENDING", "b@example.com"),
+                new Item(null, "Item C", "Description C", "PENDING", "c@example.com"));
+        BatchResult result = itemBatchService.saveAll(items.iterator(), true);
+
+        // the chunk is rolled back, then its items are saved one by one
+        assertEquals(2, result.succeeded());
+        assertEquals(first.getId(), result.ids().get(0));
+        assertNull(result.ids().get(1));
+        assertNotNull(result.ids().get(2));
+        assertEquals(1, result.errors().size());
+        assertEquals(1, result.errors().get(0).index());
+
+        assertEquals(3, itemRepository.count());
+        assertEquals("New A", itemRepository.findById(first.getId()).orElseThrow().getName());
+        assertEquals("Item B", itemRepository.findById(failing.getId()).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,95 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.CacheStatistics;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemCache;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+/**
+ * Tests for the read-through cache in front of ItemService.findById (disabled by default).
+ */
+@SpringBootTest(properties = "items.cache.enabled=true")
+public class ItemCacheTests {
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    private Item item;
+
+    @BeforeEach
+    public void addItem(){
+        itemRepository.deleteAll();
+        item = itemService.save(new Item(null, "item", "description", "PENDING", "email@example.com"));
+        Mockito.clearInvocations(itemRepository);
+    }
+
+    @Test
+    public void testFindByIdHitsCache(){
+        CacheStatistics before = itemService.getCacheStatistics();
+
+        assertEquals("item", itemService.findById(item.getId()).orElseThrow().getName());
+        assertEquals("item", itemService.findById(item.getId()).orElseThrow().getName());
+
+        // the item was cached when it was saved
+        Mockito.verify(itemRepository, Mockito.never()).findById(item.getId());
+        assertEquals(before.hits() + 2, itemService.getCacheStatistics().hits());
+    }
+
+    @Test
+    public void testCachedItemIsNotShared(){
+        Item found = itemService.findById(item.getId()).orElseThrow();
+        found.setName("changed");
+
+        assertEquals("item", itemService.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testSaveUpdatesCache(){
+        item.setName("updated");
+        itemService.save(item);
+
+        assertEquals("updated", itemService.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testOlderVersionDoesNotReplaceCachedOne(){
+        Item newer = new Item(item.getId(), "newer", "description", "PENDING", "email@example.com", item.getVersion() + 2);
+        Item older = new Item(item.getId(), "older", "description", "PENDING", "email@example.com", item.getVersion() + 1);
+
+        // the after-commit puts of two updates can run in either order
+        itemCache.put(newer);
+        itemCache.put(older);
+        assertEquals("newer", itemService.findById(item.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testDeleteInvalidatesCache(){
+        itemService.deleteById(item.getId());
+
+        assertTrue(itemService.findById(item.getId()).isEmpty());
+        Mockito.verify(itemRepository).findById(item.getId());
+    }
+
+    @Test
+    public void testProcessingInvalidatesCache(){
+        itemService.processItemsInBulk(100, false);
+
+        assertEquals("PROCESSED", itemService.findById(item.getId()).orElseThrow().getStatus());
+    }
+}
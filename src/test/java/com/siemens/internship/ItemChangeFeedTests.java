@@ -0,0 +1,319 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemChangeFeedProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemChangePage;
+import com.siemens.internship.model.ItemChangeType;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchService;
+import com.siemens.internship.service.ItemChangeFeed;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemSnapshotService;
+import com.siemens.internship.service.PartitionedProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Tests for the item change feed.
+ * The buffer only holds 4 changes, so that reading further back goes through the outbox table.
+ */
+@SpringBootTest(properties = {"items.changes.enabled=true", "items.changes.buffer-size=4",
+        "items.changes.prune-interval=PT1H", "items.changes.max-wait=PT5S",
+        "items.changes.writer-renew-interval=PT0.1S"})
+@AutoConfigureMockMvc
+public class ItemChangeFeedTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBatchService itemBatchService;
+
+    @Autowired
+    private ItemChangeFeed itemChangeFeed;
+
+    @Autowired
+    private PartitionedProcessingService partitionedProcessingService;
+
+    @Autowired
+    private ItemSnapshotService itemSnapshotService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private long start;
+
+    @BeforeEach
+    public void setUp() {
+        itemRepository.deleteAll();
+        start = itemChangeFeed.getLastSequence();
+    }
+
+    @Test
+    public void testChangesRecordedInOrder() {
+        Item item1 = itemService.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        Item item2 = itemService.save(new Item(null, "item2", "description2", "NEW", "email2@example.com"));
+        itemService.update(item1.getId(), new Item(null, "item1b", "description1", "PENDING", "email1@example.com"));
+        itemService.processItemsInBulk(1000, false);
+        itemService.delete(item2.getId());
+        itemBatchService.saveAll(
+                List.of(new Item(null, "item3", "description3", "PENDING", "email3@example.com")).iterator(), false);
+
+        List<ItemChange> changes = itemChangeFeed.read(start, 100).orElseThrow().changes();
+
+        assertEquals(List.of(ItemChangeType.CREATED, ItemChangeType.CREATED, ItemChangeType.UPDATED,
+                        ItemChangeType.STATUS_CHANGED, ItemChangeType.STATUS_CHANGED, ItemChangeType.DELETED,
+                        ItemChangeType.CREATED),
+                changes.stream().map(ItemChange::type).toList());
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(start + i + 1, changes.get(i).sequence());
+        }
+        assertEquals(item1.getId(), changes.get(0).itemId());
+        assertEquals(item2.getId(), changes.get(5).itemId());
+        assertNull(changes.get(5).status());
+
+        // the bulk update reads the previous statuses to record them, even when they aren't returned
+        assertEquals("PENDING", changes.get(3).previousStatus());
+        assertEquals("NEW", changes.get(4).previousStatus());
+        assertEquals("PROCESSED", changes.get(4).status());
+    }
+
+    @Test
+    public void testChangesPublishedOnCommit() {
+        Item item = itemService.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        long saved = itemChangeFeed.getLastSequence();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            itemService.update(item.getId(), new Item(null, "item1b", "description1", "DONE", "email1@example.com"));
+            assertEquals(saved, itemChangeFeed.getLastSequence()); // not committed yet
+            status.setRollbackOnly();
+        });
+        // the rolled back change is skipped, and neither cached nor counted
+        ItemChangePage page = itemChangeFeed.read(saved, 10).orElseThrow();
+        assertTrue(page.changes().isEmpty());
+        assertEquals(saved + 1, page.next());
+        assertEquals("item1", itemService.findById(item.getId()).orElseThrow().getName());
+
+        itemService.update(item.getId(), new Item(null, "item1c", "description1", "DONE", "email1@example.com"));
+        List<ItemChange> changes = itemChangeFeed.read(saved, 10).orElseThrow().changes();
+        assertEquals(1, changes.size());
+        assertEquals(saved + 2, changes.get(0).sequence());
+        assertEquals("DONE", changes.get(0).status());
+    }
+
+    @Test
+    public void testPartitionedRunRecorded() {
+        itemService.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemService.save(new Item(null, "item2", "description2", "NEW", "email2@example.com"));
+        long saved = itemChangeFeed.getLastSequence();
+
+        partitionedProcessingService.startRun(1);
+        partitionedProcessingService.processAvailablePartitions();
+
+        List<ItemChange> changes = itemChangeFeed.read(saved, 10).orElseThrow().changes();
+        assertEquals(List.of("PENDING", "NEW"), changes.stream().map(ItemChange::previousStatus).toList());
+        assertTrue(changes.stream().allMatch(change -> change.type() == ItemChangeType.STATUS_CHANGED));
+    }
+
+    @Test
+    public void testSnapshotImportRecorded() throws Exception {
+        itemService.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemService.save(new Item(null, "item2", "description2", "NEW", "email2@example.com"));
+        Path file = directory.resolve("items.snapshot");
+        itemSnapshotService.exportTo(file);
+        itemRepository.deleteAll();
+        long saved = itemChangeFeed.getLastSequence();
+
+        itemSnapshotService.importFrom(file);
+
+        // the imported items aren't recorded one by one, a single reset tells the consumers to read them again
+        List<ItemChange> changes = itemChangeFeed.read(saved, 10).orElseThrow().changes();
+        assertEquals(1, changes.size());
+        assertEquals(ItemChangeType.RESET, changes.get(0).type());
+        assertEquals(0, changes.get(0).itemId());
+        assertNull(changes.get(0).status());
+    }
+
+    @Test
+    public void testCatchUpFromOutbox() {
+        for (int i = 0; i < 10; i++) {
+            itemService.save(new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com"));
+        }
+
+        // the first 6 changes are only in the outbox, the last 4 in the buffer as well
+        ItemChangePage first = itemChangeFeed.read(start, 3).orElseThrow();
+        ItemChangePage second = itemChangeFeed.read(first.next(), 100).orElseThrow();
+
+        assertEquals(List.of(start + 1, start + 2, start + 3),
+                first.changes().stream().map(ItemChange::sequence).toList());
+        assertEquals(7, second.changes().size());
+        assertEquals(start + 10, second.next());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(start + 4 + i, second.changes().get(i).sequence());
+            assertEquals(ItemChangeType.CREATED, second.changes().get(i).type());
+        }
+        assertEquals(first.changes(), itemChangeFeed.read(start, 3).orElseThrow().changes());
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        CompletableFuture<Optional<ItemChangePage>> poll = itemChangeFeed.poll(start, 10, Duration.ofSeconds(5));
+        assertFalse(poll.isDone());
+
+        Item saved = itemService.save(new Item(null, "item", "description", "PENDING", "email@example.com"));
+
+        ItemChangePage page = poll.get().orElseThrow();
+        assertEquals(1, page.changes().size());
+        assertEquals(saved.getId(), page.changes().get(0).itemId());
+        assertEquals(start + 1, page.next());
+
+        // without any change the poll ends empty after the timeout
+        ItemChangePage empty = itemChangeFeed.poll(page.next(), 10, Duration.ofMillis(50)).get().orElseThrow();
+        assertTrue(empty.changes().isEmpty());
+        assertEquals(page.next(), empty.next());
+    }
+
+    @Test
+    public void testExpiredChanges() {
+        for (int i = 0; i < 6; i++) {
+            itemService.save(new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com"));
+        }
+        itemChangeFeed.prune(Instant.now().plusSeconds(1));
+
+        // the buffered changes can still be read, the older ones are gone
+        assertEquals(4, itemChangeFeed.read(start + 2, 100).orElseThrow().changes().size());
+        assertTrue(itemChangeFeed.read(start, 100).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> itemChangeFeed.read(start + 7, 100));
+    }
+
+    @Test
+    public void testGetChanges() {
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items/changes").param("after", Long.toString(start))
+                            .param("wait", "5"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            Item saved = itemService.save(new Item(null, "item", "description", "PENDING", "email@example.com"));
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes[0].sequence").value(start + 1))
+                    .andExpect(jsonPath("$.changes[0].type").value("CREATED"))
+                    .andExpect(jsonPath("$.changes[0].itemId").value(saved.getId()))
+                    .andExpect(jsonPath("$.next").value(start + 1));
+
+            MvcResult invalid = mockMvc.perform(get("/api/items/changes").param("after", Long.toString(start + 2)))
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(invalid))
+                    .andExpect(status().isBadRequest());
+        }
+        catch (Exception e) {
+            fail("TestGetChanges failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStreamChanges() {
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items/changes").param("after", Long.toString(start))
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            Item saved = itemService.save(new Item(null, "item", "description", "PENDING", "email@example.com"));
+            itemService.delete(saved.getId());
+
+            String body = "";
+            for (int i = 0; i < 100 && !body.contains("id:" + (start + 2)); i++) {
+                Thread.sleep(50);
+                body = result.getResponse().getContentAsString();
+            }
+
+            assertTrue(body.contains("id:" + (start + 1) + "\nevent:item-change\n"), body);
+            assertTrue(body.contains("\"type\":\"CREATED\""), body);
+            assertTrue(body.contains("id:" + (start + 2) + "\nevent:item-change\n"), body);
+            assertTrue(body.contains("\"type\":\"DELETED\""), body);
+        }
+        catch (Exception e) {
+            fail("TestStreamChanges failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSecondWriterIsRefused() {
+        ItemChangeFeedProperties properties = new ItemChangeFeedProperties();
+        properties.setEnabled(true);
+
+        // another node enabling the feed on the same database
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ItemChangeFeed(jdbcTemplate, properties));
+        assertTrue(e.getMessage().contains("only one node"));
+        assertNotNull(itemService.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com")));
+    }
+
+    @Test
+    public void testLeaseIsRenewedWhileSchedulerIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        taskScheduler.schedule(() -> {
+            try {
+                release.await(); // a long scheduled task holding the scheduler's thread
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Instant.now());
+        try {
+            OffsetDateTime before = leaseExpiry();
+            Thread.sleep(500);
+            assertTrue(leaseExpiry().isAfter(before));
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    private OffsetDateTime leaseExpiry() {
+        return jdbcTemplate.queryForObject("SELECT lease_expires_at FROM item_change_feed_writer WHERE id = 1",
+                OffsetDateTime.class);
+    }
+}
@@ -1,8 +1,14 @@
 package com.siemens.internship;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.siemens.internship.controller.ItemStreamSerializer;
 import com.siemens.internship.model.Item;
 import com.siemens.internship.repository.ItemRepository;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemStatusCounters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,6 +18,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -38,6 +45,9 @@ public class ItemControllerTests {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ItemStatusCounters statusCounters;
+
     @BeforeEach
     public void clearRepo() {
         itemRepository.deleteAll();
@@ -94,16 +104,307 @@ public class ItemControllerTests {
         itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
         itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
         try {
-            mockMvc.perform(get("/api/items")
-                            .contentType(MediaType.APPLICATION_JSON))
-                            .andExpect(status().isOk())
-                            .andExpect(jsonPath("$.length()").value(2));
+            MvcResult result = mockMvc.perform(get("/api/items"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].name").value("Item A"));
         }
         catch(Exception e){
             fail("TestGetAllItems failed: " + e.getMessage());
         }
     }
 
+    @Test
+    public void testGetItemsPage(){
+        Item first = itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        Item second = itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+        itemRepository.save(new Item(null, "Item C", "Description C", "PENDING", "c@example.com"));
+
+        try {
+            mockMvc.perform(get("/api/items/page").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items.length()").value(2))
+                    .andExpect(jsonPath("$.items[0].id").value(first.getId()))
+                    .andExpect(jsonPath("$.next").value(second.getId()));
+
+            mockMvc.perform(get("/api/items/page")
+                            .param("after", second.getId().toString())
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items.length()").value(1))
+                    .andExpect(jsonPath("$.items[0].name").value("Item C"))
+                    .andExpect(jsonPath("$.next").doesNotExist());
+
+            mockMvc.perform(get("/api/items/page").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+        catch(Exception e){
+            fail("TestGetItemsPage failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSearchItems(){
+        itemRepository.save(new Item(null, "Item1", "Description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "Item2", "Description2", "PROCESSED", "email2@example.com"));
+
+        try {
+            mockMvc.perform(get("/api/items/search")
+                            .param("status", "PROCESSED")
+                            .param("fields", "id,status"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items.length()").value(1))
+                    .andExpect(jsonPath("$.items[0].status").value("PROCESSED"))
+                    .andExpect(jsonPath("$.items[0].name").doesNotExist())
+                    .andExpect(jsonPath("$.next").isEmpty());
+            mockMvc.perform(get("/api/items/search").param("sort", "email"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Unknown sort: email"));
+        } catch (Exception e) {
+            fail("TestSearchItems failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetStatistics(){
+        statusCounters.reconcile(); // the items were cleared outside the services
+        itemService.save(new Item(null, "Item1", "Description1", "PENDING", "email1@example.com"));
+        itemService.save(new Item(null, "Item2", "Description2", "PROCESSED", "email2@example.com"));
+
+        try {
+            mockMvc.perform(get("/api/items/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.byStatus.PENDING").isNumber())
+                    .andExpect(jsonPath("$.total").isNumber());
+        } catch (Exception e) {
+            fail("TestGetStatistics failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStreamItems(){
+        itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items/stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].contains("\"name\":\"Item A\""));
+            assertTrue(lines[1].contains("\"name\":\"Item B\""));
+        }
+        catch(Exception e){
+            fail("TestStreamItems failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetAllItemsAsSmile(){
+        itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items").accept(ItemStreamSerializer.SMILE))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            byte[] body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(ItemStreamSerializer.SMILE))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode items = new ObjectMapper(new SmileFactory()).readTree(body);
+            assertEquals(2, items.size());
+            assertEquals("Item A", items.get(0).get("name").asText());
+            assertEquals("b@example.com", items.get(1).get("email").asText());
+        }
+        catch(Exception e){
+            fail("TestGetAllItemsAsSmile failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStreamItemsAsCbor(){
+        itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items/stream").accept(ItemStreamSerializer.CBOR))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            byte[] body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(ItemStreamSerializer.CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            List<JsonNode> items = new ObjectMapper(new CBORFactory()).readerFor(JsonNode.class)
+                    .<JsonNode>readValues(body).readAll();
+            assertEquals(2, items.size());
+            assertEquals("Item A", items.get(0).get("name").asText());
+            assertEquals("Item B", items.get(1).get("name").asText());
+        }
+        catch(Exception e){
+            fail("TestStreamItemsAsCbor failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetItemIds(){
+        Item item1 = itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        Item item2 = itemRepository.save(new Item(null, "Item B", "Description B", "PROCESSED", "a@example.com"));
+
+        try {
+            mockMvc.perform(get("/api/items/ids").param("status", "PENDING"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ids.length()").value(1))
+                    .andExpect(jsonPath("$.ids[0]").value(item1.getId()))
+                    .andExpect(jsonPath("$.next").doesNotExist());
+
+            mockMvc.perform(get("/api/items/ids").param("email", "a@example.com"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ids.length()").value(2))
+                    .andExpect(jsonPath("$.ids[1]").value(item2.getId()));
+
+            mockMvc.perform(get("/api/items/ids").param("email", "a@example.com").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ids.length()").value(1))
+                    .andExpect(jsonPath("$.next").value(item1.getId()));
+            mockMvc.perform(get("/api/items/ids").param("email", "a@example.com")
+                            .param("after", item1.getId().toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ids[0]").value(item2.getId()));
+            mockMvc.perform(get("/api/items/ids").param("status", "PENDING").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(get("/api/items/ids"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/items/ids").param("status", "PENDING").param("email", "a@example.com"))
+                    .andExpect(status().isBadRequest());
+        }
+        catch(Exception e){
+            fail("TestGetItemIds failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPartitionedRunNeedsWorker(){
+        // the tests don't run a partition worker, so the run would never progress
+        try {
+            mockMvc.perform(post("/api/items/process/partitioned"))
+                    .andExpect(status().isConflict());
+        }
+        catch(Exception e){
+            fail("TestPartitionedRunNeedsWorker failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCreateItemsBatch(){
+        String itemsJson = """
+                [
+                    {"name": "Item A", "description": "Description A", "status": "PENDING", "email": "a@example.com"},
+                    {"name": "", "description": "Description B", "status": "PENDING", "email": "b@example.com"},
+                    {"name": "Item C", "description": "Description C", "status": "PENDING", "email": "c@example.com"}
+                ]
+                """;
+        try {
+            mockMvc.perform(post("/api/items/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(itemsJson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(3))
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.ids[0]").isNumber())
+                    .andExpect(jsonPath("$.ids[1]").doesNotExist())
+                    .andExpect(jsonPath("$.errors.length()").value(1))
+                    .andExpect(jsonPath("$.errors[0].index").value(1))
+                    .andExpect(jsonPath("$.errors[0].messages[0]").value("Name can't be blank"));
+
+            assertEquals(2, itemRepository.count());
+        }
+        catch(Exception e){
+            fail("TestCreateItemsBatch failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUpsertItemsBatchNdjson(){
+        Item existing = itemRepository.save(new Item(null, "Old Name", "Old description", "PENDING", "old@example.com"));
+
+        String itemsNdjson = "{\"id\": " + existing.getId() + ", \"name\": \"New Name\", \"description\": \"New description\", "
+                + "\"status\": \"PENDING\", \"email\": \"old@example.com\"}\n"
+                + "{\"name\": \"Item B\", \"description\": \"Description B\", \"status\": \"PENDING\", \"email\": \"b@example.com\"}\n";
+        try {
+            mockMvc.perform(put("/api/items/batch")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(itemsNdjson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.ids[0]").value(existing.getId()));
+
+            assertEquals(2, itemRepository.count());
+            assertEquals("New Name", itemRepository.findById(existing.getId()).orElseThrow().getName());
+        }
+        catch(Exception e){
+            fail("TestUpsertItemsBatchNdjson failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeleteItemsBatch(){
+        Item first = itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+        Item second = itemRepository.save(new Item(null, "Item B", "Description B", "PENDING", "b@example.com"));
+
+        try {
+            mockMvc.perform(delete("/api/items/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[" + first.getId() + ", " + second.getId() + ", 99999]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.errors.length()").value(1))
+                    .andExpect(jsonPath("$.errors[0].index").value(2));
+
+            assertEquals(0, itemRepository.count());
+        }
+        catch(Exception e){
+            fail("TestDeleteItemsBatch failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeleteItemsBatchDuplicateIds(){
+        Item item = itemRepository.save(new Item(null, "Item A", "Description A", "PENDING", "a@example.com"));
+
+        try {
+            mockMvc.perform(delete("/api/items/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[" + item.getId() + ", " + item.getId() + "]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(1))
+                    .andExpect(jsonPath("$.errors.length()").value(1))
+                    .andExpect(jsonPath("$.errors[0].index").value(1))
+                    .andExpect(jsonPath("$.errors[0].messages[0]").value("Duplicate id"));
+        }
+        catch(Exception e){
+            fail("TestDeleteItemsBatchDuplicateIds failed: " + e.getMessage());
+        }
+    }
+
     @Test
     public void testFindById(){
         Item saved = itemRepository.save(new Item(null, "Item", "Description", "PENDING", "email@example.com"));
@@ -121,6 +422,72 @@ public class ItemControllerTests {
         }
     }
 
+    @Test
+    public void testGetItemNotModified(){
+        Item item = itemService.save(new Item(null, "Item1", "Description1", "PENDING", "email1@example.com"));
+
+        try {
+            MvcResult result = mockMvc.perform(get("/api/items/" + item.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"0\""))
+                    .andExpect(header().exists("Last-Modified"))
+                    .andReturn();
+
+            mockMvc.perform(get("/api/items/" + item.getId())
+                            .header("If-None-Match", result.getResponse().getHeader("ETag")))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            item.setName("Item2");
+            itemService.update(item.getId(), item);
+            mockMvc.perform(get("/api/items/" + item.getId())
+                            .header("If-None-Match", result.getResponse().getHeader("ETag")))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"1\""))
+                    .andExpect(jsonPath("$.name").value("Item2"));
+        } catch (Exception e) {
+            fail("TestGetItemNotModified failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetAllItemsNotModified(){
+        itemService.save(new Item(null, "Item1", "Description1", "PENDING", "email1@example.com"));
+
+        try {
+            MvcResult first = mockMvc.perform(get("/api/items"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String etag = mockMvc.perform(asyncDispatch(first))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertNotNull(etag);
+
+            Mockito.clearInvocations(itemService);
+            mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+            Mockito.verify(itemService, Mockito.never()).forEachItem(Mockito.any()); // nothing read
+
+            itemService.save(new Item(null, "Item2", "Description2", "PENDING", "email2@example.com"));
+            MvcResult result = mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            etag = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            // changes made outside this node's services are seen as well
+            Item changed = itemRepository.findAll().get(0);
+            changed.setName("Changed");
+            itemRepository.save(changed);
+            mockMvc.perform(get("/api/items").header("If-None-Match", etag))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            fail("TestGetAllItemsNotModified failed: " + e.getMessage());
+        }
+    }
+
     @Test
     public void updateValidItem(){
         Item original = itemRepository.save(new Item(null, "Old Name", "Old description", "PENDING", "old@example.com"));
@@ -194,6 +561,33 @@ public class ItemControllerTests {
         }
     }
 
+    @Test
+    public void testUpdateVersionConflict(){
+        Item original = itemRepository.save(new Item(null, "Old Name", "Old description", "PENDING", "old@example.com"));
+
+        String staleJson = """
+                {
+                    "name": "Updated Name",
+                    "description": "Updated Description",
+                    "status": "PROCESSED",
+                    "email": "updated@example.com",
+                    "version": %d
+                }
+                """.formatted(original.getVersion() + 5);
+
+        try {
+            mockMvc.perform(put("/api/items/" + original.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(staleJson))
+                    .andExpect(status().isConflict());
+
+            assertEquals("Old Name", itemRepository.findById(original.getId()).orElseThrow().getName());
+        }
+        catch(Exception e){
+            fail("TestUpdateVersionConflict failed: " + e.getMessage());
+        }
+    }
+
     @Test
     public void testDelete(){
         Item item = itemRepository.save(new Item(null, "ToDelete", "desc", "PENDING", "x@example.com"));
@@ -218,7 +612,11 @@ public class ItemControllerTests {
         itemRepository.save(new Item(null, "B", "Desc", "PENDING", "b@example.com"));
 
         try {
-            mockMvc.perform(get("/api/items/process"))
+            MvcResult result = mockMvc.perform(get("/api/items/process"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.length()").value(2))
                     .andExpect(jsonPath("$[0].status").value("PROCESSED"));
@@ -228,19 +626,86 @@ public class ItemControllerTests {
         }
     }
 
+    @Test
+    public void testProcessingJob(){
+        itemRepository.save(new Item(null, "A", "Desc", "PENDING", "a@example.com"));
+
+        try {
+            mockMvc.perform(post("/api/items/process"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().exists("Location"))
+                    .andExpect(jsonPath("$.jobId").exists());
+
+            mockMvc.perform(get("/api/items/process/unknown"))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(delete("/api/items/process/unknown"))
+                    .andExpect(status().isNotFound());
+        }
+        catch(Exception e){
+            fail("TestProcessingJob failed: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testProcessItemsStreaming(){
+        itemRepository.save(new Item(null, "A", "Desc", "PENDING", "a@example.com"));
+        itemRepository.save(new Item(null, "B", "Desc", "PENDING", "b@example.com"));
+
+        try {
+            MvcResult result = mockMvc.perform(post("/api/items/process/stream").param("window", "1"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].contains("\"status\":\"PROCESSED\""));
+
+            mockMvc.perform(post("/api/items/process/stream").param("window", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+        catch(Exception e){
+            fail("TestProcessItemsStreaming failed: " + e.getMessage());
+        }
+    }
+
     @Test
     public void testProcessItemsFailedError(){
-        // simulates a failure during async processing (ExecutionException)
+        // simulates a failure during async processing (the future completes exceptionally)
         CompletableFuture<List<Item>> failingFuture = new CompletableFuture<>();
         failingFuture.completeExceptionally(new RuntimeException());
 
         try {
-            Mockito.doReturn(failingFuture).when(itemService).processItemsAsync();
-            mockMvc.perform(get("/api/items/process"))
+            Mockito.doReturn(failingFuture).when(itemService).processItemsShared();
+            MvcResult result = mockMvc.perform(get("/api/items/process"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
                     .andExpect(status().isInternalServerError())
                     .andExpect(content().string("An error occurred while processing the items."));
         } catch (Exception e) {
             fail("TestProcessItemsFailedError failed: " + e.getMessage());
         }
     }
+
+    @Test
+    public void testReplayDeadLetters(){
+        try {
+            mockMvc.perform(get("/api/items/process/dead-letters").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/items/process/dead-letters"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isArray());
+            mockMvc.perform(post("/api/items/process/dead-letters/replay"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.replayed").value(0));
+        } catch (Exception e) {
+            fail("TestReplayDeadLetters failed: " + e.getMessage());
+        }
+    }
 }
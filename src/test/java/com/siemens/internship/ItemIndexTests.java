@@ -0,0 +1,123 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemIdPage;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchService;
+import com.siemens.internship.service.ItemIndex;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+
+/**
+ * Tests for the in-memory index of the ids by status and by email.
+ * The periodic refresh is pushed back, so the index is only rebuilt by the tests.
+ */
+@SpringBootTest(properties = {"items.index.enabled=true", "items.index.refresh-interval=PT1H"})
+public class ItemIndexTests {
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBatchService itemBatchService;
+
+    @Autowired
+    private ItemIndex itemIndex;
+
+    private Item item1;
+    private Item item2;
+    private Item item3;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+        item1 = itemRepository.save(new Item(null, "item1", "description1", "PENDING", "shared@example.com"));
+        item2 = itemRepository.save(new Item(null, "item2", "description2", "PENDING", "shared@example.com"));
+        item3 = itemRepository.save(new Item(null, "item3", "description3", "PROCESSED", "email3@example.com"));
+        itemIndex.rebuild();
+        Mockito.clearInvocations(itemRepository);
+    }
+
+    @Test
+    public void testLookupsFromIndex() {
+        assertArrayEquals(new long[]{item1.getId(), item2.getId()}, itemService.findIdsByStatus("PENDING", null, 100).ids());
+        assertArrayEquals(new long[]{item3.getId()}, itemService.findIdsByStatus("PROCESSED", null, 100).ids());
+        assertArrayEquals(new long[0], itemService.findIdsByStatus("NEW", null, 100).ids());
+        assertArrayEquals(new long[]{item1.getId(), item2.getId()}, itemService.findIdsByEmail("shared@example.com", null, 100).ids());
+        assertArrayEquals(new long[0], itemService.findIdsByEmail("SHARED@example.com", null, 100).ids());
+
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByStatus(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByEmail(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testPagedLookupsFromIndex() {
+        ItemIdPage first = itemService.findIdsByStatus("PENDING", null, 1);
+        assertArrayEquals(new long[]{item1.getId()}, first.ids());
+        ItemIdPage second = itemService.findIdsByStatus("PENDING", first.next(), 1);
+        assertArrayEquals(new long[]{item2.getId()}, second.ids());
+        ItemIdPage last = itemService.findIdsByStatus("PENDING", second.next(), 1);
+        assertArrayEquals(new long[0], last.ids());
+        assertNull(last.next());
+
+        assertArrayEquals(new long[]{item2.getId()},
+                itemService.findIdsByEmail("shared@example.com", item1.getId(), 10).ids());
+        assertNull(itemService.findIdsByEmail("shared@example.com", item1.getId(), 10).next());
+
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByStatus(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByEmail(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testIndexFollowsServiceChanges() throws Exception {
+        Item item4 = itemService.save(new Item(null, "item4", "description4", "NEW", "email4@example.com"));
+        itemService.update(item1.getId(), new Item(null, "item1", "description1", "NEW", "email1@example.com"));
+        itemService.deleteById(item2.getId());
+        itemService.delete(item3.getId());
+        itemBatchService.saveAll(List.of(
+                new Item(null, "item5", "description5", "NEW", "email4@example.com")).iterator(), false);
+        itemService.processItemsAsync().get();
+
+        List<Item> items = itemRepository.findAll();
+        long[] expected = items.stream().mapToLong(Item::getId).sorted().toArray();
+        assertEquals(3, items.size());
+        assertArrayEquals(expected, itemService.findIdsByStatus("PROCESSED", null, 100).ids());
+        assertArrayEquals(new long[0], itemService.findIdsByStatus("NEW", null, 100).ids());
+        assertArrayEquals(new long[0], itemService.findIdsByStatus("PENDING", null, 100).ids());
+        assertArrayEquals(new long[]{item1.getId()}, itemService.findIdsByEmail("email1@example.com", null, 100).ids());
+        assertEquals(2, itemService.findIdsByEmail("email4@example.com", null, 100).ids().length);
+        assertEquals(item4.getId(), itemService.findIdsByEmail("email4@example.com", null, 100).ids()[0]);
+        assertArrayEquals(new long[0], itemService.findIdsByEmail("shared@example.com", null, 100).ids());
+
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByStatus(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByEmail(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testStaleIndexFallsBackToDatabase() {
+        itemService.processItemsInBulk(10, false); // the updated ids aren't known one by one
+
+        long[] all = {item1.getId(), item2.getId(), item3.getId()};
+        assertArrayEquals(all, itemService.findIdsByStatus("PROCESSED", null, 100).ids());
+        Mockito.verify(itemRepository).findIdsByStatus(Mockito.eq("PROCESSED"), Mockito.any(), Mockito.any());
+
+        itemIndex.refresh();
+        Mockito.clearInvocations(itemRepository);
+        assertArrayEquals(all, itemService.findIdsByStatus("PROCESSED", null, 100).ids());
+        assertArrayEquals(new long[0], itemService.findIdsByStatus("PENDING", null, 100).ids());
+        Mockito.verify(itemRepository, Mockito.never()).findIdsByStatus(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+}
@@ -0,0 +1,64 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Tests for the meters published by the item service and processing.
+ */
+@SpringBootTest(properties = "items.cache.enabled=true")
+public class ItemMetricsTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+
+        itemRepository.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "item2", "description2", "PENDING", "email2@example.com"));
+    }
+
+    @Test
+    public void testServiceMethodsAreTimed(){
+        itemService.findAll();
+
+        Timer timer = meterRegistry.find("items.service").tag("method", "findAll").timer();
+        assertNotNull(timer);
+        assertTrue(timer.count() > 0);
+    }
+
+    @Test
+    public void testProcessedItemsAreTimed(){
+        Timer timer = meterRegistry.find("items.processing.item").tag("outcome", "success").timer();
+        long before = timer == null ? 0 : timer.count();
+
+        itemService.processItemsAsync().join();
+
+        timer = meterRegistry.find("items.processing.item").tag("outcome", "success").timer();
+        assertNotNull(timer);
+        assertEquals(before + 2, timer.count());
+    }
+
+    @Test
+    public void testExecutorAndCacheMetersAreRegistered(){
+        assertNotNull(meterRegistry.find("items.processing.executor.queued").gauge());
+        assertNotNull(meterRegistry.find("items.processing.executor.active").gauge());
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "items").meter());
+    }
+}
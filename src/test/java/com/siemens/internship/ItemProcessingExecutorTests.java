@@ -0,0 +1,96 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemProcessingExecutor;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Unit tests for the concurrency limit and lifecycle of ItemProcessingExecutor.
+ */
+public class ItemProcessingExecutorTests {
+
+    @Test
+    public void testConcurrencyIsLimited(){
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try (ItemProcessingExecutor executor = new ItemProcessingExecutor(
+                Executors.newFixedThreadPool(8), 2, Duration.ofSeconds(5))) {
+            List<CompletableFuture<Void>> futures = IntStream.range(0, 50)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(2);
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                    }, executor))
+                    .toList();
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+
+        assertTrue(maxRunning.get() <= 2, "At most 2 tasks should run at the same time");
+    }
+
+    @Test
+    public void testWaitingTasksDontHoldThreads() throws InterruptedException {
+        ThreadPoolExecutor delegate = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+
+        try (ItemProcessingExecutor executor = new ItemProcessingExecutor(delegate, 1, Duration.ofSeconds(5))) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            for (int i = 0; i < 5; i++) {
+                executor.execute(completed::incrementAndGet); // doesn't block the caller
+            }
+
+            // the waiting tasks are queued without taking a thread of the backend
+            assertEquals(5, executor.getQueued());
+            assertEquals(1, delegate.getPoolSize());
+
+            release.countDown();
+        }
+
+        assertEquals(5, completed.get());
+    }
+
+    @Test
+    public void testCloseWaitsForTasks(){
+        AtomicInteger completed = new AtomicInteger();
+
+        ItemProcessingExecutor executor = new ItemProcessingExecutor(new ForkJoinPool(2), 2, Duration.ofSeconds(5));
+        for (int i = 0; i < 10; i++) {
+            executor.execute(completed::incrementAndGet);
+        }
+        executor.close();
+
+        assertEquals(10, completed.get());
+        assertThrows(RuntimeException.class, () -> executor.execute(completed::incrementAndGet));
+    }
+
+    @Test
+    public void testInvalidConcurrency(){
+        assertThrows(IllegalArgumentException.class,
+                () -> new ItemProcessingExecutor(Executors.newSingleThreadExecutor(), 0, Duration.ZERO));
+    }
+}
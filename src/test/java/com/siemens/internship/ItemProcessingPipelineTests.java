@@ -0,0 +1,161 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemProcessingProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemProcessingPipeline;
+import com.siemens.internship.service.ItemProcessor;
+import com.siemens.internship.service.ItemService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for the staged item processing pipeline, with the optional stages enabled.
+ */
+@SpringBootTest(properties = {"items.processing.stages.normalize-email.enabled=true",
+        "items.processing.stages.validate.enabled=true"})
+public class ItemProcessingPipelineTests {
+
+    @Autowired
+    private ItemProcessingPipeline processingPipeline;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    public void testEnabledStages(){
+        assertEquals(List.of("normalize-email", "validate", "mark-processed"), processingPipeline.getStageNames());
+
+        Item item = processingPipeline.submit(
+                new Item(1L, "item1", "description1", "PENDING", "  Email1@Example.COM ")).join();
+        assertEquals("email1@example.com", item.getEmail());
+        assertEquals("PROCESSED", item.getStatus());
+    }
+
+    @Test
+    public void testInvalidItemFailsAlone(){
+        CompletableFuture<Item> invalid = processingPipeline.submit(new Item(1L, "", "description1", "PENDING", "email1@example.com"));
+        CompletableFuture<Item> valid = processingPipeline.submit(new Item(2L, "item2", "description2", "PENDING", "email2@example.com"));
+
+        CompletionException e = assertThrows(CompletionException.class, invalid::join);
+        assertInstanceOf(ConstraintViolationException.class, e.getCause());
+        assertEquals("PROCESSED", valid.join().getStatus());
+    }
+
+    @Test
+    public void testProcessItemsAsyncRunsStages(){
+        itemRepository.deleteAll();
+        Item saved = itemRepository.save(new Item(null, "item1", "description1", "PENDING", "Email1@Example.com"));
+
+        try {
+            List<Item> items = itemService.processItemsAsync().get();
+            assertEquals(1, items.size());
+        }
+        catch (Exception e) {
+            fail("ProcessItemsAsyncRunsStages test failed: " + e.getMessage());
+        }
+        Item processed = itemRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("email1@example.com", processed.getEmail());
+        assertEquals("PROCESSED", processed.getStatus());
+    }
+
+    @Test
+    public void testStageBatchesAndMetrics() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        ItemProcessor slowStage = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+
+            @Override
+            public void process(List<Item> items) throws InterruptedException {
+                batchSizes.add(items.size());
+                firstBatchStarted.countDown();
+                release.await();
+            }
+        };
+
+        ItemProcessingProperties properties = new ItemProcessingProperties();
+        ItemProcessingProperties.Stage stage = new ItemProcessingProperties.Stage();
+        stage.setBatchSize(10);
+        properties.getStages().put("slow", stage);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        try (ItemProcessingPipeline pipeline = new ItemProcessingPipeline(List.of(slowStage), properties, meterRegistry)) {
+            CompletableFuture<Item> first = pipeline.submit(new Item(0L, "item0", "description0", "PENDING", "email0@example.com"));
+            assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+
+            // items arriving while the stage is busy are handed to it together
+            List<CompletableFuture<Item>> others = IntStream.range(1, 21)
+                    .mapToObj(i -> pipeline.submit(new Item((long) i, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com")))
+                    .toList();
+            release.countDown();
+
+            first.join();
+            others.forEach(CompletableFuture::join);
+        }
+
+        assertEquals(List.of(1, 10, 10), batchSizes);
+        assertEquals(3, meterRegistry.get("items.processing.stage").tag("stage", "slow").timer().count());
+        assertEquals(21, meterRegistry.get("items.processing.stage.batch.size").tag("stage", "slow").summary().totalAmount());
+    }
+
+    @Test
+    public void testSubmitDoesNotBlockOnFullStage() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ItemProcessor slowStage = new ItemProcessor() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+
+            @Override
+            public void process(List<Item> items) throws InterruptedException {
+                firstBatchStarted.countDown();
+                release.await();
+            }
+        };
+
+        ItemProcessingProperties properties = new ItemProcessingProperties();
+        ItemProcessingProperties.Stage stage = new ItemProcessingProperties.Stage();
+        stage.setQueueCapacity(2);
+        properties.getStages().put("slow", stage);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        try (ItemProcessingPipeline pipeline = new ItemProcessingPipeline(List.of(slowStage), properties, meterRegistry)) {
+            CompletableFuture<Item> first = pipeline.submit(new Item(0L, "item0", "description0", "PENDING", "email0@example.com"));
+            assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+
+            // more items than the queue holds are accepted, they wait for room
+            List<CompletableFuture<Item>> others = IntStream.range(1, 10)
+                    .mapToObj(i -> pipeline.submit(new Item((long) i, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com")))
+                    .toList();
+            assertEquals(9, meterRegistry.get("items.processing.stage.queued").tag("stage", "slow").gauge().value());
+            release.countDown();
+
+            first.join();
+            others.forEach(CompletableFuture::join);
+        }
+    }
+}
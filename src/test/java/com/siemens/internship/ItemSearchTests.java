@@ -0,0 +1,99 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemSearchCriteria;
+import com.siemens.internship.model.ItemSearchPage;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the item search: filters, sorting, keyset paging and field selection.
+ */
+@SpringBootTest
+public class ItemSearchTests {
+
+    private static final ItemSearchCriteria NO_FILTER = new ItemSearchCriteria(null, null, null, null);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchService itemSearchService;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+
+        itemRepository.save(new Item(null, "apple", "description1", "PENDING", "a@example.com"));
+        itemRepository.save(new Item(null, "banana", "description2", "PROCESSED", "b@Example.com"));
+        itemRepository.save(new Item(null, "apricot", "description3", "PENDING", "c@other.org"));
+        itemRepository.save(new Item(null, "a_b", "description4", "PROCESSED", "d@example.com"));
+    }
+
+    @Test
+    public void testFilters(){
+        assertEquals(List.of("apple", "apricot"), names(search(new ItemSearchCriteria("PENDING", null, null, null))));
+        assertEquals(List.of("banana"), names(search(new ItemSearchCriteria(null, "b@Example.com", null, null))));
+        assertEquals(List.of("apple", "banana", "a_b"), names(search(new ItemSearchCriteria(null, null, "EXAMPLE.com", null))));
+        assertEquals(List.of("apple", "apricot"), names(search(new ItemSearchCriteria(null, null, null, "ap"))));
+        // wildcards in the prefix are matched literally
+        assertEquals(List.of("a_b"), names(search(new ItemSearchCriteria(null, null, null, "a_"))));
+        assertEquals(List.of("apricot"), names(search(new ItemSearchCriteria("PENDING", null, "other.org", "a"))));
+    }
+
+    @Test
+    public void testFieldSelection(){
+        ItemSearchPage page = itemSearchService.search(NO_FILTER, "status,id", "id", null, 10);
+
+        assertEquals(4, page.items().size());
+        assertEquals(List.of("status", "id"), new ArrayList<>(page.items().get(0).keySet()));
+        assertThrows(IllegalArgumentException.class, () -> itemSearchService.search(NO_FILTER, "id,unknown", "id", null, 10));
+    }
+
+    @Test
+    public void testKeysetPagingByName(){
+        List<String> names = new ArrayList<>();
+        String after = null;
+        do {
+            // the name isn't selected, but the paging still works
+            ItemSearchPage page = itemSearchService.search(NO_FILTER, "id", "-name", after, 3);
+            page.items().forEach(item -> names.add(itemRepository.findById((Long) item.get("id")).orElseThrow().getName()));
+            after = page.next();
+        } while (after != null);
+
+        assertEquals(List.of("banana", "apricot", "apple", "a_b"), names);
+    }
+
+    @Test
+    public void testKeysetPagingById(){
+        ItemSearchPage first = itemSearchService.search(NO_FILTER, "id", "id", null, 2);
+        ItemSearchPage second = itemSearchService.search(NO_FILTER, "id", "id", first.next(), 2);
+        ItemSearchPage last = itemSearchService.search(NO_FILTER, "id", "id", second.next(), 2);
+
+        assertEquals(2, second.items().size());
+        assertTrue((Long) first.items().get(1).get("id") < (Long) second.items().get(0).get("id"));
+        assertTrue(last.items().isEmpty());
+        assertNull(last.next());
+
+        // a cursor of the id order can't be used with the name order
+        assertThrows(IllegalArgumentException.class, () -> itemSearchService.search(NO_FILTER, null, "name", first.next(), 2));
+        assertThrows(IllegalArgumentException.class, () -> itemSearchService.search(NO_FILTER, null, "id", "not a cursor", 2));
+    }
+
+    private List<Map<String, Object>> search(ItemSearchCriteria criteria) {
+        return itemSearchService.search(criteria, "name", "id", null, 100).items();
+    }
+
+    private static List<Object> names(List<Map<String, Object>> items) {
+        return items.stream().map(item -> item.get("name")).toList();
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.List;
 import java.util.Optional;
@@ -77,4 +78,41 @@ public class ItemServiceCrudTests {
 
         assertEquals("A", itemOptional.get().getName());
     }
+
+    @Test
+    public void testUpdate(){
+        Item original = itemService.save(new Item(null, "A", "DescriptionA", "PENDING", "a@example.com"));
+
+        Optional<Item> updated = itemService.update(original.getId(),
+                new Item(null, "B", "DescriptionB", "PENDING", "b@example.com"));
+        assertTrue(updated.isPresent());
+        assertEquals("B", itemService.findById(original.getId()).orElseThrow().getName());
+
+        assertTrue(itemService.update(99999L, new Item(null, "C", "DescriptionC", "PENDING", "c@example.com")).isEmpty());
+    }
+
+    @Test
+    public void testUpdateWithVersion(){
+        Item original = itemService.save(new Item(null, "A", "DescriptionA", "PENDING", "a@example.com"));
+        Long version = original.getVersion();
+        assertNotNull(version);
+
+        Item updated = itemService.update(original.getId(),
+                new Item(null, "B", "DescriptionB", "PENDING", "b@example.com", version)).orElseThrow();
+        assertEquals(version + 1, updated.getVersion());
+
+        // the same version can't be used twice
+        assertThrows(OptimisticLockingFailureException.class, () -> itemService.update(original.getId(),
+                new Item(null, "C", "DescriptionC", "PENDING", "c@example.com", version)));
+        assertEquals("B", itemService.findById(original.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testDeleteReportsMissingItem(){
+        Item item = itemService.save(new Item(null, "A", "DescriptionA", "PENDING", "a@example.com"));
+
+        assertTrue(itemService.delete(item.getId()));
+        assertFalse(itemService.delete(item.getId()));
+        assertTrue(itemService.findById(item.getId()).isEmpty());
+    }
 }
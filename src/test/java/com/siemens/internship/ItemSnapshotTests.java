@@ -0,0 +1,225 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemSnapshotProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.SnapshotResult;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemSnapshotCommand;
+import com.siemens.internship.service.ItemSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the snapshot export and import of the items table.
+ * Blocks are kept small, so that snapshots have several blocks imported in parallel.
+ */
+@SpringBootTest(properties = {"items.snapshot.block-size=7", "items.snapshot.batch-size=3",
+        "items.snapshot.import-threads=3", "items.snapshot.directory=target/test-snapshots"})
+@AutoConfigureMockMvc
+public class ItemSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemSnapshotService itemSnapshotService;
+
+    @Autowired
+    private ItemSnapshotCommand itemSnapshotCommand;
+
+    @Autowired
+    private ItemSnapshotProperties properties;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            items.add(new Item(null, "item" + i, "description" + i, i % 3 == 0 ? "PROCESSED" : "PENDING",
+                    "email" + i + "@example.com"));
+        }
+        items.add(new Item(null, "Ünïcode ✓ 😀", "€ and \uD800 unpaired", "NEW", "unicode@example.com"));
+        itemRepository.saveAll(items);
+        // a second version of some items
+        itemRepository.findAll().stream().limit(5).forEach(item -> {
+            item.setStatus("CHANGED");
+            itemRepository.save(item);
+        });
+    }
+
+    @Test
+    public void testExportAndImport() throws Exception {
+        List<Item> expected = itemRepository.findAll(Sort.by("id"));
+        Path file = directory.resolve("items.snapshot");
+
+        SnapshotResult exported = itemSnapshotService.exportTo(file);
+        assertEquals(31, exported.rows());
+        assertEquals(Files.size(file), exported.bytes());
+
+        itemRepository.deleteAll();
+        SnapshotResult imported = itemSnapshotService.importFrom(file);
+        assertEquals(31, imported.rows());
+
+        List<Item> actual = itemRepository.findAll(Sort.by("id"));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Item e = expected.get(i);
+            Item a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getDescription().replace('\uD800', '?'), a.getDescription());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getEmail(), a.getEmail());
+            assertEquals(e.getVersion(), a.getVersion());
+            assertEquals(e.getUpdatedAt(), a.getUpdatedAt());
+        }
+
+        // new items get ids above the imported ones
+        long maxId = expected.get(expected.size() - 1).getId();
+        Item created = itemService.save(new Item(null, "new", "description", "NEW", "new@example.com"));
+        assertTrue(created.getId() > maxId);
+        // the counters don't know the imported statuses until they are reconciled
+        assertTrue(itemService.getStatistics().reconciliationPending());
+    }
+
+    @Test
+    public void testNeedsProcessingSurvivesImport() throws Exception {
+        itemRepository.findAll().stream()
+                .filter(item -> "PROCESSED".equals(item.getStatus()))
+                .forEach(item -> {
+                    item.setNeedsProcessing(false);
+                    itemRepository.save(item);
+                });
+        List<Long> expected = itemRepository.findIdsToProcess();
+        Path file = directory.resolve("items.snapshot");
+        itemSnapshotService.exportTo(file);
+
+        itemRepository.deleteAll();
+        itemSnapshotService.importFrom(file);
+        assertEquals(expected, itemRepository.findIdsToProcess());
+        assertTrue(expected.size() < 31); // the processed ones aren't processed again
+    }
+
+    @Test
+    public void testImportLargerBlocks() throws Exception {
+        Path file = directory.resolve("items.snapshot");
+        properties.setBlockSize(20); // exported by a node with another block size
+        try {
+            itemSnapshotService.exportTo(file);
+        }
+        finally {
+            properties.setBlockSize(7);
+        }
+
+        itemRepository.deleteAll();
+        assertEquals(31, itemSnapshotService.importFrom(file).rows());
+        assertEquals(31, itemRepository.count());
+    }
+
+    @Test
+    public void testExportEmptyTable() throws Exception {
+        itemRepository.deleteAll();
+        Path file = directory.resolve("empty.snapshot");
+
+        assertEquals(0, itemSnapshotService.exportTo(file).rows());
+        assertEquals(0, itemSnapshotService.importFrom(file).rows());
+        assertEquals(0, itemRepository.count());
+    }
+
+    @Test
+    public void testImportIntoNonEmptyTable() throws Exception {
+        Path file = directory.resolve("items.snapshot");
+        itemSnapshotService.exportTo(file);
+
+        assertThrows(IllegalStateException.class, () -> itemSnapshotService.importFrom(file));
+        assertEquals(31, itemRepository.count());
+    }
+
+    @Test
+    public void testImportInvalidFile() throws Exception {
+        itemRepository.deleteAll();
+        Path file = directory.resolve("invalid.snapshot");
+        Files.writeString(file, "not a snapshot, but long enough to have a header");
+
+        assertThrows(IllegalArgumentException.class, () -> itemSnapshotService.importFrom(file));
+        assertThrows(NoSuchFileException.class, () -> itemSnapshotService.importFrom(directory.resolve("missing")));
+        assertEquals(0, itemRepository.count());
+    }
+
+    @Test
+    public void testSnapshotNames() {
+        assertEquals("a-b_c.1" + ItemSnapshotService.FILE_EXTENSION,
+                itemSnapshotService.resolve("a-b_c.1").getFileName().toString());
+        for (String name : List.of("", ".hidden", "../items", "a/b", "a\\b")) {
+            assertThrows(IllegalArgumentException.class, () -> itemSnapshotService.resolve(name), name);
+        }
+    }
+
+    @Test
+    public void testCommandLine() throws Exception {
+        Path file = directory.resolve("cli.snapshot");
+        String[] exportArgs = {"--snapshot.export=" + file};
+        String[] importArgs = {"--snapshot.import=" + file};
+        assertTrue(ItemSnapshotCommand.isCommand(exportArgs));
+        assertFalse(ItemSnapshotCommand.isCommand("--server.port=8081"));
+
+        itemSnapshotCommand.run(new DefaultApplicationArguments(exportArgs));
+        assertTrue(Files.exists(file));
+
+        itemRepository.deleteAll();
+        itemSnapshotCommand.run(new DefaultApplicationArguments(importArgs));
+        assertEquals(31, itemRepository.count());
+    }
+
+    @Test
+    public void testSnapshotEndpoints(){
+        try {
+            mockMvc.perform(post("/api/items/snapshots/endpoints"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rows").value(31));
+
+            mockMvc.perform(post("/api/items/snapshots/endpoints/import"))
+                    .andExpect(status().isConflict());
+
+            itemRepository.deleteAll();
+            mockMvc.perform(post("/api/items/snapshots/endpoints/import"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rows").value(31));
+
+            mockMvc.perform(post("/api/items/snapshots/missing/import"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(post("/api/items/snapshots/.hidden"))
+                    .andExpect(status().isBadRequest());
+        }
+        catch(Exception e){
+            fail("TestSnapshotEndpoints failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatistics;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchService;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemStatusCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the item statistics kept in in-memory counters.
+ * The periodic refresh is pushed back, so counters are only reconciled by the tests.
+ */
+@SpringBootTest(properties = "items.stats.refresh-interval=PT1H")
+public class ItemStatisticsTests {
+
+    @Autowired
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBatchService itemBatchService;
+
+    @Autowired
+    private ItemStatusCounters statusCounters;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+        itemRepository.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "item2", "description2", "PENDING", "email2@example.com"));
+        statusCounters.reconcile();
+        Mockito.clearInvocations(itemRepository);
+    }
+
+    @Test
+    public void testCountersFollowChanges() throws Exception {
+        assertEquals(2, itemService.getStatistics().total());
+
+        itemService.save(new Item(null, "item3", "description3", "NEW", "email3@example.com"));
+        itemService.processItemsAsync().get();
+
+        ItemStatistics statistics = itemService.getStatistics();
+        assertEquals(3, statistics.total());
+        assertEquals(Map.of("PROCESSED", 3L), statistics.byStatus());
+        assertFalse(statistics.reconciliationPending());
+        // served from memory
+        Mockito.verify(itemRepository, Mockito.never()).countByStatus();
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAreCounted(){
+        List<Item> items = itemRepository.findAll();
+        itemService.update(items.get(0).getId(), new Item(null, "item1", "description1", "DONE", "email1@example.com"));
+        itemService.delete(items.get(1).getId());
+        Item saved = itemService.save(new Item(null, "item3", "description3", "NEW", "email3@example.com"));
+        saved.setStatus("DONE");
+        itemService.save(saved);
+        itemBatchService.deleteAll(List.of(saved.getId()));
+
+        // the statements return the previous statuses, so nothing needs to be reconciled
+        ItemStatistics statistics = itemService.getStatistics();
+        assertFalse(statistics.reconciliationPending());
+        assertEquals(Map.of("DONE", 1L), statistics.byStatus());
+        assertEquals(1, statistics.total());
+        Mockito.verify(itemRepository, Mockito.never()).countByStatus();
+    }
+
+    @Test
+    public void testUnknownChangesAreReconciled(){
+        // without the change feed, bulk processing doesn't read the previous statuses
+        itemService.processItemsInBulk(100, false);
+
+        assertTrue(itemService.getStatistics().reconciliationPending());
+        statusCounters.refresh();
+
+        ItemStatistics statistics = itemService.getStatistics();
+        assertFalse(statistics.reconciliationPending());
+        assertEquals(Map.of("PROCESSED", 2L), statistics.byStatus());
+        assertEquals(2, statistics.total());
+    }
+
+    @Test
+    public void testChangesOutsideTheServicesArePickedUpByReconciliation(){
+        itemRepository.save(new Item(null, "item3", "description3", "PROCESSED", "email3@example.com"));
+        assertEquals(2, itemService.getStatistics().total());
+
+        statusCounters.reconcile();
+        assertEquals(Map.of("PENDING", 2L, "PROCESSED", 1L), itemService.getStatistics().byStatus());
+    }
+}
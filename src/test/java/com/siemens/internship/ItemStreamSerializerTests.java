@@ -0,0 +1,66 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.siemens.internship.controller.ItemStreamSerializer;
+import com.siemens.internship.model.Item;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tests that the streaming serializer writes the same documents as the ObjectMapper, in every format.
+ */
+@SpringBootTest
+public class ItemStreamSerializerTests {
+
+    private static final List<Item> ITEMS = List.of(
+            new Item(1L, "Item \"A\"", "Ünïcode ✓", "PENDING", "a@example.com", 3L, Instant.parse("2025-01-02T03:04:05.123456Z")),
+            new Item(2L, "Item B", null, null, null, null, null));
+
+    @Autowired
+    private ItemStreamSerializer itemStreamSerializer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testJsonMatchesObjectMapper() throws IOException {
+        byte[] streamed = write(MediaType.APPLICATION_JSON);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(ITEMS)), objectMapper.readTree(streamed));
+    }
+
+    @Test
+    public void testSmileMatchesObjectMapper() throws IOException {
+        byte[] streamed = write(ItemStreamSerializer.SMILE);
+
+        // compared as JSON text, small numbers are read back from binary formats as ints rather than longs
+        assertEquals(objectMapper.writeValueAsString(ITEMS), new ObjectMapper(new SmileFactory()).readTree(streamed).toString());
+    }
+
+    @Test
+    public void testCborMatchesObjectMapper() throws IOException {
+        byte[] streamed = write(ItemStreamSerializer.CBOR);
+
+        // compared as JSON text, small numbers are read back from binary formats as ints rather than longs
+        assertEquals(objectMapper.writeValueAsString(ITEMS), new ObjectMapper(new CBORFactory()).readTree(streamed).toString());
+    }
+
+    private byte[] write(MediaType mediaType) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = itemStreamSerializer.createGenerator(mediaType, out)) {
+            itemStreamSerializer.writeItems(generator, ITEMS);
+        }
+        return out.toByteArray();
+    }
+}
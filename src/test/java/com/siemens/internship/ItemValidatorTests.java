@@ -0,0 +1,97 @@
+package com.siemens.internship;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.service.ItemValidator;
+import jakarta.validation.ConstraintViolation;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tests that the compiled ItemValidator agrees with the bean validation of the Item constraints,
+ * both on which items are valid and on the errors put in a BindingResult.
+ */
+@SpringBootTest
+public class ItemValidatorTests {
+
+    private static final List<String> NAMES = List.of("name", "", " ", "\t\n", " a ", "a".repeat(100), "a".repeat(101));
+    private static final List<String> EMAILS = List.of("email@example.com", "a.b+c_d-e@ex-ample.co", "A1@B2.cd",
+            "", " ", "a", "a@", "a@example", "a@example.", "a@example.c", "aexample.com", "@example.com", "@.",
+            "a@b.c1", "a@b.cd.ef", "a@@b.cd", "a@b..cd", "a@.cd", "a b@c.de", "a@b.cd\n", "é@b.cd", "a@b-.cd",
+            "a".repeat(250) + "@b.cd");
+
+    @Autowired
+    private ItemValidator itemValidator;
+
+    @Autowired
+    private jakarta.validation.Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testSameViolationsAsBeanValidation() {
+        for (Item item : items()) {
+            List<String> expected = validator.validate(item).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .toList();
+
+            assertEquals(expected, itemValidator.getMessages(item), "Failed on case: " + describe(item));
+            assertEquals(expected.isEmpty(), itemValidator.isValid(item), "Failed on case: " + describe(item));
+        }
+    }
+
+    @Test
+    public void testSameBindingResultErrors() throws Exception {
+        SpringValidatorAdapter adapter = new SpringValidatorAdapter(validator);
+
+        for (Item item : items()) {
+            BindingResult expected = new BeanPropertyBindingResult(item, "item");
+            adapter.validate(item, expected);
+            BindingResult actual = new BeanPropertyBindingResult(item, "item");
+            itemValidator.validate(item, actual);
+
+            // the errors are compared as the controller returns them, the order of bean validation is unspecified
+            assertEquals(sortedErrors(expected), sortedErrors(actual), "Failed on case: " + describe(item));
+        }
+    }
+
+    private List<JsonNode> sortedErrors(BindingResult result) throws Exception {
+        List<JsonNode> errors = new ArrayList<>();
+        for (JsonNode error : objectMapper.readTree(objectMapper.writeValueAsString(result.getAllErrors()))) {
+            errors.add(error);
+        }
+        errors.sort(Comparator.comparing(JsonNode::toString));
+        return errors;
+    }
+
+    private static List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        for (String name : NAMES) {
+            items.add(new Item(null, name, "description", "PENDING", "email@example.com"));
+        }
+        for (String email : EMAILS) {
+            items.add(new Item(null, "name", "description", "PENDING", email));
+        }
+        items.add(new Item(null, null, null, null, null));
+        items.add(new Item(null, "", "", "", ""));
+        items.add(new Item(null, "a".repeat(101), "a".repeat(256), "a".repeat(51), "a"));
+        items.add(new Item(null, "name", "a".repeat(255), "a".repeat(50), "email@example.com"));
+        return items;
+    }
+
+    private static String describe(Item item) {
+        return item.getName() + " / " + item.getDescription() + " / " + item.getStatus() + " / " + item.getEmail();
+    }
+}
@@ -0,0 +1,157 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.PartitionStatus;
+import com.siemens.internship.model.PartitionedRunStatus;
+import com.siemens.internship.model.ProcessingPartition;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingPartitionRepository;
+import com.siemens.internship.service.DeadLetterService;
+import com.siemens.internship.service.PartitionedProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tests for the lease-based partitioned processing.
+ * Uses its own database and no background worker, so partitions are only claimed by the tests.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:partitions",
+        "items.processing.partitions.worker-enabled=false",
+        "items.processing.partitions.lease-renew-interval=PT0.1S"})
+public class PartitionedProcessingTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingPartitionRepository partitionRepository;
+
+    @Autowired
+    private PartitionedProcessingService partitionedProcessingService;
+
+    @SpyBean
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    public void addItems(){
+        partitionRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    public void testRunIsProcessedByPartitions(){
+        PartitionedRunStatus started = partitionedProcessingService.startRun(2);
+        assertEquals(3, started.pending());
+
+        assertEquals(3, partitionedProcessingService.processAvailablePartitions());
+
+        PartitionedRunStatus finished = partitionedProcessingService.getRun(started.runId()).orElseThrow();
+        assertEquals(3, finished.done());
+        assertEquals(0, finished.pending());
+        assertEquals(5, finished.processed());
+        assertTrue(itemRepository.findAll().stream()
+                .allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    public void testPartitionsFollowSparseIds(){
+        List<Long> ids = itemRepository.findAllIds().stream().sorted().toList();
+        itemRepository.deleteAllById(ids.subList(1, 4)); // leaves a gap in the ids
+
+        // the partitions hold the remaining ids, none of them covers only the gap
+        PartitionedRunStatus started = partitionedProcessingService.startRun(2);
+        assertEquals(1, started.pending());
+        ProcessingPartition partition = partitionRepository.findByRunId(started.runId()).get(0);
+        assertEquals(ids.get(0), partition.getFromId());
+        assertEquals(ids.get(4), partition.getToId());
+
+        PartitionedRunStatus single = partitionedProcessingService.startRun(1);
+        assertEquals(2, single.pending());
+    }
+
+    @Test
+    public void testLeaseIsRenewedWhileProcessing(){
+        partitionedProcessingService.startRun(100);
+        ProcessingPartition claimed = partitionedProcessingService.claimNext().orElseThrow();
+        Instant claimedUntil = claimed.getLeaseExpiresAt();
+
+        // a partition taking longer than a few renewal intervals
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(500);
+            return invocation.callRealMethod();
+        }).when(deadLetterService).removeInRange(Mockito.any(), Mockito.any());
+
+        assertTrue(partitionedProcessingService.process(claimed));
+        ProcessingPartition stored = partitionRepository.findById(claimed.getId()).orElseThrow();
+        assertEquals(PartitionStatus.DONE, stored.getStatus());
+        assertTrue(stored.getLeaseExpiresAt().isAfter(claimedUntil));
+    }
+
+    @Test
+    public void testFinishedRunsAreRemoved(){
+        PartitionedRunStatus finished = partitionedProcessingService.startRun(2);
+        partitionedProcessingService.processAvailablePartitions();
+        PartitionedRunStatus unfinished = partitionedProcessingService.startRun(2);
+
+        // kept until the retention passes
+        assertEquals(0, partitionedProcessingService.removeFinishedRuns());
+        assertEquals(3, partitionedProcessingService.removeFinishedRuns(Instant.now().plus(Duration.ofHours(1))));
+
+        assertTrue(partitionedProcessingService.getRun(finished.runId()).isEmpty());
+        assertEquals(3, partitionedProcessingService.getRun(unfinished.runId()).orElseThrow().pending());
+    }
+
+    @Test
+    public void testClaimedPartitionIsNotClaimedTwice(){
+        partitionedProcessingService.startRun(100);
+
+        ProcessingPartition claimed = partitionedProcessingService.claimNext().orElseThrow();
+        assertEquals(partitionedProcessingService.getNodeId(), claimed.getOwner());
+        assertTrue(partitionedProcessingService.claimNext().isEmpty());
+    }
+
+    @Test
+    public void testExpiredLeaseIsReclaimed(){
+        partitionedProcessingService.startRun(100);
+
+        // simulates a node that died while holding the lease
+        ProcessingPartition partition = partitionRepository.findAll().get(0);
+        partition.setStatus(PartitionStatus.CLAIMED);
+        partition.setOwner("dead-node");
+        partition.setLeaseExpiresAt(Instant.now().minusSeconds(1));
+        partitionRepository.save(partition);
+
+        ProcessingPartition reclaimed = partitionedProcessingService.claimNext().orElseThrow();
+        assertEquals(partition.getId(), reclaimed.getId());
+        assertTrue(partitionedProcessingService.process(reclaimed));
+    }
+
+    @Test
+    public void testLostLeaseIsNotCompleted(){
+        partitionedProcessingService.startRun(100);
+        ProcessingPartition claimed = partitionedProcessingService.claimNext().orElseThrow();
+
+        // another node took over the partition
+        ProcessingPartition stored = partitionRepository.findById(claimed.getId()).orElseThrow();
+        stored.setOwner("other-node");
+        partitionRepository.save(stored);
+
+        assertFalse(partitionedProcessingService.process(claimed));
+        assertTrue(itemRepository.findAll().stream()
+                .allMatch(item -> "PENDING".equals(item.getStatus())));
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -51,6 +52,17 @@ public class ProcessItemsAsyncTests {
         }
     }
 
+    @Test
+    public void testProcessItemsAsyncOnlySetsStatus() throws Exception {
+        // the optional stages are disabled by default, so the other fields are left as they are
+        Item item = itemRepository.save(new Item(null, "item4", "description4", "PENDING", "Email4@Example.com"));
+
+        itemService.processItemsAsync().get();
+        Item processed = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals("PROCESSED", processed.getStatus());
+        assertEquals("Email4@Example.com", processed.getEmail());
+    }
+
     @Test
     public void testProcessItemsAsyncFailUpdate(){
         // simulates a failure during item update (save throws RuntimeException)
@@ -90,4 +102,51 @@ public class ProcessItemsAsyncTests {
             fail("ProcessItemsAsyncFailFindItem test failed: " + e.getMessage());
         }
     }
+
+    @Test
+    public void testProcessItemsStreaming(){
+        // simulates a failure during item update, the failed item isn't emitted
+        Item itemToFail = itemRepository.save(new Item(null, "item4", "description4", "PENDING", "email4@example.com"));
+
+        Mockito.doThrow(new RuntimeException())
+                .when(itemRepository)
+                .save(Mockito.argThat(item -> item.getId().equals(itemToFail.getId())));
+
+        List<Item> emitted = new ArrayList<>();
+        long processed = itemService.processItemsStreaming(2, emitted::add);
+
+        assertEquals(3, processed);
+        assertEquals(3, emitted.size());
+        assertTrue(emitted.stream().allMatch(item -> "PROCESSED".equals(item.getStatus())));
+        // emitted in id order
+        assertTrue(emitted.get(0).getId() < emitted.get(1).getId() && emitted.get(1).getId() < emitted.get(2).getId());
+    }
+
+    @Test
+    public void testProcessItemsStreamingIncremental(){
+        Item processedItem = new Item(null, "item4", "description4", "PROCESSED", "email4@example.com");
+        processedItem.setNeedsProcessing(false); // already processed
+        processedItem = itemRepository.save(processedItem);
+        Long processedId = processedItem.getId();
+        Mockito.clearInvocations(itemRepository);
+
+        List<Item> emitted = new ArrayList<>();
+        assertEquals(3, itemService.processItemsStreaming(10, true, emitted::add));
+        assertFalse(emitted.stream().anyMatch(item -> item.getId().equals(processedId)));
+        Mockito.verify(itemRepository, Mockito.never()).findById(processedId);
+
+        // a second run has nothing left to do
+        assertEquals(0, itemService.processItemsStreaming(10, true, item -> {}));
+
+        // an item modified after it was processed is processed again, even though its status didn't change
+        itemService.update(processedId, new Item(null, "item4b", "description4", "PROCESSED", "email4@example.com"));
+        emitted.clear();
+        assertEquals(1, itemService.processItemsStreaming(10, true, emitted::add));
+        assertEquals(processedId, emitted.get(0).getId());
+    }
+
+    @Test
+    public void testProcessItemsStreamingInvalidWindow(){
+        assertThrows(IllegalArgumentException.class, () -> itemService.processItemsStreaming(0, item -> {}));
+    }
 }
@@ -0,0 +1,99 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ProcessingJobState;
+import com.siemens.internship.model.ProcessingJobStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+/**
+ * Tests for the background processing jobs and their registry.
+ */
+@SpringBootTest
+public class ProcessingJobTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @BeforeEach
+    public void addItems(){
+        itemRepository.deleteAll();
+
+        itemRepository.save(new Item(null, "item1", "description1", "PENDING", "email1@example.com"));
+        itemRepository.save(new Item(null, "item2", "description2", "PENDING", "email2@example.com"));
+        itemRepository.save(new Item(null, "item3", "description3", "PENDING", "email3@example.com"));
+    }
+
+    @Test
+    public void testProcessingJobCompletes() throws InterruptedException {
+        ProcessingJobStatus started = itemService.startProcessingJob();
+        assertNotNull(started.jobId());
+
+        ProcessingJobStatus status = awaitFinished(started.jobId());
+        assertEquals(ProcessingJobState.COMPLETED, status.state());
+        assertEquals(3, status.total());
+        assertEquals(3, status.processed());
+        assertEquals(0, status.failed());
+        assertEquals(0, status.remaining());
+        assertTrue(itemRepository.findAll().stream()
+                .allMatch(item -> "PROCESSED".equals(item.getStatus())));
+    }
+
+    @Test
+    public void testUnknownProcessingJob(){
+        assertTrue(itemService.getProcessingJob("unknown").isEmpty());
+        assertTrue(itemService.cancelProcessingJob("unknown").isEmpty());
+    }
+
+    @Test
+    public void testCancelFinishedJob(){
+        ProcessingJob job = new ProcessingJob("job");
+        job.start(1);
+        job.complete();
+
+        assertFalse(job.cancel());
+        assertEquals(ProcessingJobState.COMPLETED, job.toStatus().state());
+    }
+
+    @Test
+    public void testRegistryEviction(){
+        ProcessingJobRegistry registry = new ProcessingJobRegistry(1, Duration.ofHours(1));
+
+        ProcessingJob running = registry.register();
+        // the only slot is taken by a running job
+        assertThrows(IllegalStateException.class, registry::register);
+
+        running.complete();
+        ProcessingJob next = registry.register(); // the finished job makes room
+        assertTrue(registry.find(running.getId()).isEmpty());
+        assertTrue(registry.find(next.getId()).isPresent());
+
+        ProcessingJobRegistry expiring = new ProcessingJobRegistry(10, Duration.ZERO);
+        ProcessingJob finished = expiring.register();
+        finished.complete();
+        assertTrue(expiring.find(finished.getId()).isEmpty());
+    }
+
+    private ProcessingJobStatus awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ProcessingJobStatus status = itemService.getProcessingJob(jobId).orElseThrow();
+            if (status.state().isFinished()) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Job " + jobId + " did not finish in time");
+    }
+}
@@ -0,0 +1,74 @@
+package com.siemens.internship;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+/**
+ * Tests for the Flyway migrations.
+ * Uses its own database, and has Hibernate validate the migrated schema against the entities.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "items.processing.partitions.worker-enabled=false"})
+public class SchemaMigrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testItemIndexes(){
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'ITEMS'", String.class);
+
+        assertTrue(indexes.contains("IDX_ITEMS_STATUS_ID"));
+        assertTrue(indexes.contains("IDX_ITEMS_EMAIL"));
+        assertTrue(indexes.contains("IDX_ITEMS_NEEDS_PROCESSING_ID"));
+    }
+
+    @Test
+    public void testItemColumnSizes(){
+        List<Integer> sizes = jdbcTemplate.queryForList(
+                "SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'ITEMS' " +
+                        "AND COLUMN_NAME IN ('NAME', 'DESCRIPTION', 'STATUS', 'EMAIL') ORDER BY COLUMN_NAME", Integer.class);
+
+        // description, email, name, status
+        assertEquals(List.of(255, 254, 100, 50), sizes);
+    }
+
+    @Test
+    public void testItemVersionIsNotNull(){
+        String nullable = jdbcTemplate.queryForObject(
+                "SELECT IS_NULLABLE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'ITEMS' AND COLUMN_NAME = 'VERSION'",
+                String.class);
+        assertEquals("NO", nullable);
+
+        jdbcTemplate.update("INSERT INTO items (id, name, description, status, email) " +
+                "VALUES (-1, 'item', 'description', 'PENDING', 'email@example.com')");
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM items WHERE id = -1", Long.class));
+        jdbcTemplate.update("DELETE FROM items WHERE id = -1");
+    }
+
+    @Test
+    public void testUpgradeKeepsProcessedItemsProcessed(){
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:upgrade;DB_CLOSE_DELAY=-1");
+        JdbcTemplate upgraded = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("4").load().migrate();
+        upgraded.update("INSERT INTO items (id, name, description, status, email, version) VALUES " +
+                "(1, 'item1', 'description1', 'PROCESSED', 'email1@example.com', NULL), " +
+                "(2, 'item2', 'description2', 'PROCESSED', 'email2@example.com', 3), " +
+                "(3, 'item3', 'description3', 'PENDING', 'email3@example.com', NULL)");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        assertEquals(List.of(3L), upgraded.queryForList(
+                "SELECT id FROM items WHERE needs_processing ORDER BY id", Long.class));
+        upgraded.execute("SHUTDOWN");
+    }
+}
@@ -0,0 +1,87 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemWriteBehindBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for saving items with write-behind batching enabled.
+ */
+@SpringBootTest(properties = {"items.write-behind.enabled=true", "items.write-behind.batch-size=10"})
+public class WriteBehindTests {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemWriteBehindBuffer writeBehindBuffer;
+
+    @BeforeEach
+    public void clearRepo(){
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    public void testSaveAsyncReturnsGeneratedIds(){
+        List<CompletableFuture<Item>> futures = IntStream.range(0, 25)
+                .mapToObj(i -> itemService.saveAsync(
+                        new Item(null, "item" + i, "description" + i, "PENDING", "email" + i + "@example.com")))
+                .toList();
+
+        List<Long> ids = futures.stream()
+                .map(CompletableFuture::join)
+                .map(Item::getId)
+                .toList();
+
+        assertTrue(ids.stream().allMatch(Objects::nonNull));
+        assertEquals(25, ids.stream().distinct().count());
+        assertEquals(25, itemRepository.count());
+    }
+
+    @Test
+    public void testSaveAndUpdate(){
+        Item saved = itemService.save(new Item(null, "A", "DescriptionA", "PENDING", "a@example.com"));
+        assertNotNull(saved.getId());
+
+        saved.setName("B");
+        itemService.save(saved);
+        assertEquals("B", itemRepository.findById(saved.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void testInvalidItemDoesNotFailBatch(){
+        List<Item> items = IntStream.range(0, 5)
+                .mapToObj(i -> new Item(null, i == 3 ? null : "item" + i, "description" + i, "PENDING",
+                        "email" + i + "@example.com"))
+                .toList();
+        List<CompletableFuture<Item>> futures = items.stream().map(writeBehindBuffer::submit).toList();
+
+        // the items of the failed batch are saved again one by one, as new items (not merged)
+        for (int i = 0; i < futures.size(); i++) {
+            CompletableFuture<Item> future = futures.get(i);
+            if (i == 3) {
+                assertThrows(CompletionException.class, future::join);
+            }
+            else {
+                assertSame(items.get(i), future.join());
+                assertNotNull(future.join().getId());
+            }
+        }
+        assertEquals(4, itemRepository.count());
+    }
+}